@@ -6,8 +6,10 @@ layout(location = 1) in vec4 aColor;
 layout(location = 2) in vec2 aTexCoords;
 layout(location = 3) in float aTexID;
 
-uniform mat4 uProjection;
-uniform mat4 uView;
+layout(std140) uniform Camera {
+    mat4 uProjection;
+    mat4 uView;
+};
 
 out vec4 fColor;
 out vec2 fTexCoords;
@@ -30,14 +32,23 @@ in vec4 fColor;
 in vec2 fTexCoords;
 in float fTexID;
 
+#ifdef TEXTURE_ARRAYS
+uniform sampler2DArray[8] uTextures;
+#else
 uniform sampler2D[8] uTextures;
+#endif
 
 out vec4 color;
 
 void main() {
     if(fTexID > 0) {
         int id = int(fTexID);
+#ifdef TEXTURE_ARRAYS
+        int slot = id % 16;
+        color = fColor * texture(uTextures[slot], vec3(fTexCoords, id / 16));
+#else
         color = fColor * texture(uTextures[id], fTexCoords);
+#endif
 //        color = vec4(fTexCoords, 0, 1);
     } else {
         color = fColor;
@@ -0,0 +1,54 @@
+#type vertex
+#version 330 core
+
+layout(location = 0) in vec2 aCorner;
+layout(location = 1) in vec4 aPosScale;
+layout(location = 2) in vec4 aColor;
+layout(location = 3) in vec4 aTexRect;
+layout(location = 4) in float aTexID;
+
+layout(std140) uniform Camera {
+    mat4 uProjection;
+    mat4 uView;
+};
+
+out vec4 fColor;
+out vec2 fTexCoords;
+out float fTexID;
+
+void main() {
+    fColor = aColor;
+    fTexCoords = mix(aTexRect.xy, aTexRect.zw, aCorner);
+    fTexID = aTexID;
+
+    gl_Position = uProjection * uView * vec4(aPosScale.xy + aCorner * aPosScale.zw, 0.0, 1.0);
+}
+
+#type fragment
+#version 330 core
+
+in vec4 fColor;
+in vec2 fTexCoords;
+in float fTexID;
+
+#ifdef TEXTURE_ARRAYS
+uniform sampler2DArray[8] uTextures;
+#else
+uniform sampler2D[8] uTextures;
+#endif
+
+out vec4 color;
+
+void main() {
+    if(fTexID > 0) {
+        int id = int(fTexID);
+#ifdef TEXTURE_ARRAYS
+        int slot = id % 16;
+        color = fColor * texture(uTextures[slot], vec3(fTexCoords, id / 16));
+#else
+        color = fColor * texture(uTextures[id], fTexCoords);
+#endif
+    } else {
+        color = fColor;
+    }
+}
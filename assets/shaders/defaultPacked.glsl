@@ -0,0 +1,52 @@
+#type vertex
+#version 330 core
+
+layout(location = 0) in vec2 aPos;
+layout(location = 1) in vec4 aColor;
+layout(location = 2) in vec2 aTexCoords;
+layout(location = 3) in int aTexID;
+
+layout(std140) uniform Camera {
+    mat4 uProjection;
+    mat4 uView;
+};
+
+out vec4 fColor;
+out vec2 fTexCoords;
+flat out int fTexID;
+
+void main() {
+    fColor = aColor;
+    fTexCoords = aTexCoords;
+    fTexID = aTexID;
+
+    gl_Position = uProjection * uView * vec4(aPos, 0.0, 1.0);
+}
+
+#type fragment
+#version 330 core
+
+in vec4 fColor;
+in vec2 fTexCoords;
+flat in int fTexID;
+
+#ifdef TEXTURE_ARRAYS
+uniform sampler2DArray[8] uTextures;
+#else
+uniform sampler2D[8] uTextures;
+#endif
+
+out vec4 color;
+
+void main() {
+    if(fTexID > 0) {
+#ifdef TEXTURE_ARRAYS
+        int slot = fTexID % 16;
+        color = fColor * texture(uTextures[slot], vec3(fTexCoords, fTexID / 16));
+#else
+        color = fColor * texture(uTextures[fTexID], fTexCoords);
+#endif
+    } else {
+        color = fColor;
+    }
+}
@@ -0,0 +1,43 @@
+package gamepad.benchmarks;
+
+import gamepad.object.GameObject;
+import gamepad.object.components.SpriteRenderer;
+import gamepad.renderer.Graphics;
+import gamepad.renderer.NullBackend;
+import gamepad.utils.Settings;
+import gamepad.utils.Transform;
+import org.joml.Vector2f;
+import org.joml.Vector4f;
+
+// Shared setup, every benchmark runs without a window against the null render backend
+public class Benchmarks {
+
+    public static final float SPRITE_SIZE = 32.0f;
+
+    public static void headless() {
+        if(!Graphics.isHeadless()) Graphics.set(new NullBackend());
+
+        // Culling asks the current scene for its camera, there is none here
+        Settings.FRUSTUM_CULLING = false;
+    }
+
+    // Untextured sprites laid out in rows of 100, started so they report their changes
+    public static GameObject[] sprites(int count) {
+        GameObject[] objects = new GameObject[count];
+        for(int i = 0; i < count; i++) {
+            GameObject object = new GameObject("Benchmark_Sprite_" + i,
+                    new Transform(new Vector2f((i % 100) * SPRITE_SIZE, (i / 100) * SPRITE_SIZE),
+                            new Vector2f(SPRITE_SIZE, SPRITE_SIZE)), 0);
+
+            SpriteRenderer spriteRenderer = new SpriteRenderer();
+            spriteRenderer.setColor(new Vector4f((i % 7) / 7.0f, (i % 11) / 11.0f, (i % 13) / 13.0f, 1.0f));
+            object.addComponent(spriteRenderer);
+
+            object.start();
+            objects[i] = object;
+        }
+
+        return objects;
+    }
+
+}
@@ -0,0 +1,100 @@
+package gamepad.benchmarks;
+
+import gamepad.object.GameObject;
+import gamepad.utils.ColumnStore;
+import gamepad.utils.Settings;
+import gamepad.utils.Transform;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// A 100k tile level with transforms and colors in column stores or in their own arrays. Reads every
+// transform through the views, and through the store columns directly. The heap each tile retains is
+// printed when a level is built.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnStorageBenchmark {
+
+    private static final int TILES = 100000;
+
+    @State(Scope.Thread)
+    public static class Tiles {
+        @Param({"true", "false"})
+        public boolean columnStorage;
+
+        GameObject[] objects;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            objects = build(columnStorage);
+        }
+    }
+
+    // Streaming only exists with the store
+    @State(Scope.Thread)
+    public static class StoredTiles {
+        GameObject[] objects;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            objects = build(true);
+        }
+    }
+
+    private static GameObject[] build(boolean columnStorage) {
+        Benchmarks.headless();
+        Settings.COLUMN_STORAGE = columnStorage;
+
+        long before = usedHeap();
+        GameObject[] objects = Benchmarks.sprites(TILES);
+        long after = usedHeap();
+        System.out.printf("%nColumn storage %b: %.1f bytes retained per tile%n", columnStorage,
+                (after - before) / (double) TILES);
+
+        return objects;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Bounds of every tile, like culling or vertex generation walking the game objects
+    @Benchmark
+    public float iterateTransforms(Tiles tiles) {
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for(GameObject object : tiles.objects) {
+            Transform transform = object.transform;
+            maxX = Math.max(maxX, transform.getX() + transform.getScaleX());
+            maxY = Math.max(maxY, transform.getY() + transform.getScaleY());
+        }
+        return maxX + maxY;
+    }
+
+    // The same bounds read straight from the columns, chunk by chunk
+    @Benchmark
+    public float iterateColumns(StoredTiles tiles) {
+        ColumnStore store = Transform.getStore();
+        int remaining = store.getSlotCount();
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+
+        for(int c = 0; c < store.getChunkCount() && remaining > 0; c++) {
+            float[] chunk = store.getChunk(c);
+            int count = Math.min(remaining, ColumnStore.CHUNK_SIZE);
+            int x = Transform.X * ColumnStore.CHUNK_SIZE, y = Transform.Y * ColumnStore.CHUNK_SIZE;
+            int scaleX = Transform.SCALE_X * ColumnStore.CHUNK_SIZE, scaleY = Transform.SCALE_Y * ColumnStore.CHUNK_SIZE;
+
+            for(int i = 0; i < count; i++) {
+                maxX = Math.max(maxX, chunk[x + i] + chunk[scaleX + i]);
+                maxY = Math.max(maxY, chunk[y + i] + chunk[scaleY + i]);
+            }
+            remaining -= count;
+        }
+        return maxX + maxY;
+    }
+
+}
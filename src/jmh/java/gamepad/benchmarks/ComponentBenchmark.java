@@ -0,0 +1,50 @@
+package gamepad.benchmarks;
+
+import gamepad.object.GameObject;
+import gamepad.object.components.*;
+import gamepad.utils.Transform;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Component lookups on a game object with a handful of components
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentBenchmark {
+
+    private GameObject gameObject;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        gameObject = new GameObject("Benchmark_Object", new Transform(), 0);
+        gameObject.addComponent(new SpriteRenderer());
+        gameObject.addComponent(new Rigidbody());
+        gameObject.addComponent(new MouseControls());
+        gameObject.addComponent(new FontRenderer());
+    }
+
+    @Benchmark
+    public SpriteRenderer first() {
+        return gameObject.getComponent(SpriteRenderer.class);
+    }
+
+    @Benchmark
+    public FontRenderer last() {
+        return gameObject.getComponent(FontRenderer.class);
+    }
+
+    @Benchmark
+    public GridLines missing() {
+        return gameObject.getComponent(GridLines.class);
+    }
+
+    @Benchmark
+    public Component supertype() {
+        return gameObject.getComponent(Component.class);
+    }
+
+}
@@ -0,0 +1,92 @@
+package gamepad.benchmarks;
+
+import gamepad.jobs.Job;
+import gamepad.jobs.JobSystem;
+import gamepad.jobs.Phase;
+import gamepad.jobs.RangeJob;
+import gamepad.utils.Settings;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Overhead of the job system: one empty job, a range split into many small parts and a chain of
+// dependent jobs. Run with -prof gc to check that scheduling does not allocate.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobSystemBenchmark {
+
+    private static final int CHAIN = 8;
+
+    public static class EmptyJob extends Job {
+        EmptyJob() {
+            super("Empty job");
+        }
+
+        @Override
+        protected void execute() {
+        }
+    }
+
+    public static class SumJob extends RangeJob {
+        final float[] values = new float[64 * 1024];
+        final float[] sums = new float[values.length];
+
+        SumJob() {
+            super("Sum job");
+        }
+
+        @Override
+        protected void execute(int from, int to) {
+            float sum = 0;
+            for(int i = from; i < to; i++) sum += values[i];
+            sums[from] = sum;
+        }
+    }
+
+    @Param({"0", "1", "3"})
+    public int workers;
+
+    private final EmptyJob empty = new EmptyJob();
+    private final SumJob sum = new SumJob();
+    private final EmptyJob[] chain = new EmptyJob[CHAIN];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Settings.JOB_WORKERS = workers;
+        JobSystem.start();
+
+        for(int i = 0; i < CHAIN; i++) {
+            chain[i] = new EmptyJob();
+            if(i > 0) chain[i].dependsOn(chain[i - 1]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        JobSystem.shutdown();
+    }
+
+    @Benchmark
+    public void emptyJob() {
+        JobSystem.run(Phase.UPDATE, empty);
+    }
+
+    // 256 parts of 256 values
+    @Benchmark
+    public float rangeJob() {
+        sum.setRange(sum.values.length, 256);
+        JobSystem.run(Phase.UPDATE, sum);
+        return sum.sums[0];
+    }
+
+    @Benchmark
+    public void dependencyChain() {
+        for(EmptyJob job : chain) JobSystem.schedule(Phase.UPDATE, job);
+        JobSystem.barrier(Phase.UPDATE);
+    }
+
+}
@@ -0,0 +1,58 @@
+package gamepad.benchmarks;
+
+import gamepad.jobs.JobSystem;
+import gamepad.object.GameObject;
+import gamepad.renderer.Renderer;
+import gamepad.utils.Settings;
+import gamepad.utils.Transform;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// How vertex generation scales with threads when every one of 100k sprites moves each frame.
+// One thread is the sequential path, more threads are the calling thread plus job system workers.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelGenerationBenchmark {
+
+    private static final int SPRITES = 100000;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private GameObject[] objects;
+    private Renderer renderer;
+    private float direction = 1.0f;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.headless();
+        Settings.PARALLEL_VERTEX_GENERATION = threads > 1;
+        Settings.JOB_WORKERS = threads - 1;
+        JobSystem.start();
+
+        objects = Benchmarks.sprites(SPRITES);
+        renderer = new Renderer();
+        for(GameObject object : objects) renderer.add(object);
+        renderer.prepare(1.0f);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        renderer.destroy();
+        JobSystem.shutdown();
+    }
+
+    @Benchmark
+    public void movingFrame() {
+        Transform.beginStep();
+        direction = -direction;
+        for(GameObject object : objects) object.transform.translate(direction, 0.0f);
+        renderer.prepare(1.0f);
+    }
+
+}
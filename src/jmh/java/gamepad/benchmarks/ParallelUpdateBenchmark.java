@@ -0,0 +1,92 @@
+package gamepad.benchmarks;
+
+import gamepad.jobs.JobSystem;
+import gamepad.object.GameObject;
+import gamepad.object.components.Component;
+import gamepad.object.components.UpdateAccess;
+import gamepad.scenes.LevelScene;
+import gamepad.scenes.Scene;
+import gamepad.utils.Settings;
+import gamepad.utils.Transform;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// A scene where every object runs a script, updated on the calling thread and by the job system.
+// Steering reads the transform and writes its own state, Movement writes the transform, so each step
+// runs in two stages.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelUpdateBenchmark {
+
+    private static final int OBJECTS = 20000;
+
+    // Some math per object, like a behaviour deciding where to go
+    @UpdateAccess(reads = Transform.class, writes = Steering.class)
+    public static class Steering extends Component {
+        float velocityX = 0, velocityY = 0;
+
+        @Override
+        public void update(float deltaTime) {
+            float x = gameObject.transform.getX(), y = gameObject.transform.getY();
+            float angle = 0;
+            for(int i = 1; i <= 16; i++) angle += (float) Math.sin(x * 0.01f * i + y * 0.02f);
+
+            velocityX = (float) Math.cos(angle) * 10.0f;
+            velocityY = (float) Math.sin(angle) * 10.0f;
+        }
+    }
+
+    @UpdateAccess(reads = Steering.class, writes = Transform.class)
+    public static class Movement extends Component {
+        private Steering steering;
+
+        @Override
+        public void start() {
+            steering = gameObject.getComponent(Steering.class);
+        }
+
+        @Override
+        public void update(float deltaTime) {
+            gameObject.transform.translate(steering.velocityX * deltaTime, steering.velocityY * deltaTime);
+        }
+    }
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private Scene scene;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.headless();
+        Settings.PARALLEL_UPDATE = threads > 1;
+        Settings.JOB_WORKERS = threads - 1;
+        JobSystem.start();
+
+        scene = new LevelScene();
+        for(GameObject object : Benchmarks.sprites(OBJECTS)) {
+            object.addComponent(new Steering());
+            object.addComponent(new Movement());
+            scene.addGameObjectToScene(object);
+        }
+        scene.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scene.destroy();
+        Settings.PARALLEL_UPDATE = false;
+        JobSystem.shutdown();
+    }
+
+    @Benchmark
+    public void update() {
+        scene.update(1.0f / 60.0f);
+    }
+
+}
@@ -0,0 +1,64 @@
+package gamepad.benchmarks;
+
+import gamepad.object.GameObject;
+import gamepad.object.components.SpriteRenderer;
+import gamepad.renderer.RenderBatch;
+import gamepad.renderer.Renderer;
+import gamepad.renderer.VertexFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Vertex loading of one full dynamic batch, every sprite moves each frame
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBatchBenchmark {
+
+    private static final int BATCH_SIZE = 250;
+
+    @Param({"FLOAT", "PACKED", "INSTANCED"})
+    public VertexFormat format;
+
+    private Renderer renderer;
+    private RenderBatch batch;
+    private GameObject[] objects;
+    private float direction = 1.0f;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.headless();
+
+        renderer = new Renderer(format);
+        batch = new RenderBatch(renderer, BATCH_SIZE, 0, false, format, false);
+        batch.start();
+
+        objects = Benchmarks.sprites(BATCH_SIZE);
+        for(GameObject object : objects) {
+            SpriteRenderer spriteRenderer = object.getComponent(SpriteRenderer.class);
+            batch.addSprite(spriteRenderer);
+            renderer.getSpatialGrid().insert(spriteRenderer);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batch.destroy();
+        renderer.destroy();
+    }
+
+    // Move every sprite, then regenerate and upload the batch
+    @Benchmark
+    public void moveAndGenerate() {
+        direction = -direction;
+        for(GameObject object : objects) object.transform.translate(direction, 0.0f);
+
+        batch.generate(1.0f);
+        batch.commit();
+        batch.upload();
+    }
+
+}
@@ -0,0 +1,48 @@
+package gamepad.benchmarks;
+
+import gamepad.object.GameObject;
+import gamepad.renderer.Renderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Adding a level's worth of sprites to an empty renderer, up to the first prepared frame
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RendererBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int sprites;
+
+    private GameObject[] objects;
+    private Renderer renderer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.headless();
+        objects = Benchmarks.sprites(sprites);
+    }
+
+    // A fresh renderer each time, adding a sprite again simply moves it into the new batches
+    @Setup(Level.Invocation)
+    public void createRenderer() {
+        renderer = new Renderer();
+    }
+
+    @TearDown(Level.Invocation)
+    public void destroyRenderer() {
+        renderer.destroy();
+    }
+
+    @Benchmark
+    public Renderer addAndPrepare() {
+        for(GameObject object : objects) renderer.add(object);
+        renderer.prepare(1.0f);
+        return renderer;
+    }
+
+}
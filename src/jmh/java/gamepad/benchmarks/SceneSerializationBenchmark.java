@@ -0,0 +1,70 @@
+package gamepad.benchmarks;
+
+import gamepad.object.GameObject;
+import gamepad.object.components.Rigidbody;
+import gamepad.scenes.LevelScene;
+import gamepad.scenes.Scene;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Saving and loading a synthetic level through the scene's own JSON format, in a temporary file
+// so the real level is never overwritten
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SceneSerializationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int objects;
+
+    private Scene scene, loaded;
+    private File levelFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Benchmarks.headless();
+
+        scene = new LevelScene();
+        GameObject[] sprites = Benchmarks.sprites(objects);
+        for(int i = 0; i < sprites.length; i++) {
+            // Some objects carry a second component, like the physics objects of a real level
+            if(i % 4 == 0) sprites[i].addComponent(new Rigidbody());
+            scene.addGameObjectToScene(sprites[i]);
+        }
+
+        levelFile = File.createTempFile("benchmark_level", ".txt");
+        scene.save(levelFile.getPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scene.destroy();
+        levelFile.delete();
+    }
+
+    // Gives the column store slots of the loaded objects back, the stores would grow with every load otherwise
+    @TearDown(Level.Invocation)
+    public void destroyLoaded() {
+        if(loaded != null) loaded.destroy();
+        loaded = null;
+    }
+
+    @Benchmark
+    public void save() {
+        scene.save(levelFile.getPath());
+    }
+
+    @Benchmark
+    public Scene load() {
+        loaded = new LevelScene();
+        loaded.load(levelFile.getPath());
+        return loaded;
+    }
+
+}
@@ -0,0 +1,73 @@
+package gamepad.benchmarks;
+
+import gamepad.object.GameObject;
+import gamepad.object.components.Component;
+import gamepad.object.components.Rigidbody;
+import gamepad.object.components.UpdateAccess;
+import gamepad.scenes.LevelScene;
+import gamepad.scenes.Scene;
+import gamepad.utils.Transform;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// A tile heavy scene where only a few objects have behaviour. The scene's update list against
+// calling update() on every object the way scenes used to.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SceneUpdateBenchmark {
+
+    private static final int MOVING = 100;
+
+    // Stands in for game behaviour, moves its object back and forth
+    @UpdateAccess(reads = Transform.class, writes = Transform.class)
+    public static class Mover extends Component {
+        private float time = 0;
+
+        @Override
+        public void update(float deltaTime) {
+            time += deltaTime;
+            gameObject.transform.translate((time % 2.0f) < 1.0f ? 1.0f : -1.0f, 0.0f);
+        }
+    }
+
+    @Param({"1000", "10000", "100000"})
+    public int tiles;
+
+    private Scene scene;
+    private GameObject[] objects;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.headless();
+
+        scene = new LevelScene();
+        objects = Benchmarks.sprites(tiles);
+        for(int i = 0; i < objects.length; i++) {
+            objects[i].addComponent(new Rigidbody());
+            if(i % (tiles / MOVING) == 0) objects[i].addComponent(new Mover());
+            scene.addGameObjectToScene(objects[i]);
+        }
+        scene.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scene.destroy();
+    }
+
+    @Benchmark
+    public void updateList() {
+        scene.update(1.0f / 60.0f);
+    }
+
+    @Benchmark
+    public void updateEveryObject() {
+        for(GameObject object : objects) object.update(1.0f / 60.0f);
+    }
+
+}
@@ -0,0 +1,32 @@
+package gamepad.benchmarks;
+
+import gamepad.object.components.Spritesheet;
+import gamepad.renderer.Texture;
+import gamepad.utils.AssetPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Slicing the editor's block sheet into sprites, the texture itself is loaded once
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpritesheetBenchmark {
+
+    private Texture texture;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.headless();
+        texture = AssetPool.getTexture("assets/images/spritesheets/decorationsAndBlocks.png");
+    }
+
+    @Benchmark
+    public Spritesheet construct() {
+        return new Spritesheet(texture, 16, 16, 81, 0);
+    }
+
+}
@@ -0,0 +1,65 @@
+package gamepad.benchmarks;
+
+import gamepad.object.GameObject;
+import gamepad.renderer.Renderer;
+import gamepad.utils.Transform;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of getting transform changes to the renderer. Sprites are told about changes by their transform,
+// so a frame where nothing moved should not depend on the number of sprites.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int sprites;
+
+    private GameObject[] objects;
+    private Renderer renderer;
+    private float direction = 1.0f;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Benchmarks.headless();
+        objects = Benchmarks.sprites(sprites);
+
+        renderer = new Renderer();
+        for(GameObject object : objects) renderer.add(object);
+        renderer.prepare(1.0f);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        renderer.destroy();
+    }
+
+    @Benchmark
+    public void stillFrame() {
+        Transform.beginStep();
+        renderer.prepare(1.0f);
+    }
+
+    // Every sprite moves, after the first frames they all live in dynamic batches
+    @Benchmark
+    public void movingFrame() {
+        Transform.beginStep();
+        direction = -direction;
+        for(GameObject object : objects) object.transform.translate(direction, 0.0f);
+        renderer.prepare(1.0f);
+    }
+
+    // Writing the position a transform already has must not reach the sprite
+    @Benchmark
+    public void unchangedWrites() {
+        for(GameObject object : objects) {
+            object.transform.setPosition(object.transform.getX(), object.transform.getY());
+        }
+    }
+
+}
@@ -1,12 +1,32 @@
 import gamepad.Window;
+import gamepad.utils.Settings;
 import org.lwjgl.opengl.GL30;
 
+import java.util.Arrays;
+
 public class Launcher {
 
 
+    // --headless [steps] [--render] runs the simulation uncapped without a window and prints its throughput,
+    // --render also renders every step through the counting null backend, --parallel runs updates and vertex
+    // generation on the job system
     public static void main(String[] args) {
+        // Read once Settings loads, so it has to be set before anything touches it. -Dgamepad.profiling=false
+        // turns it off again.
+        if(System.getProperty("gamepad.profiling") == null) System.setProperty("gamepad.profiling", "true");
+
         Window window = Window.get();
-        window.run();
+        if(args.length > 0 && args[0].equals("--headless")) {
+            int steps = args.length > 1 && !args[1].startsWith("--") ? Integer.parseInt(args[1]) : 10000;
+            boolean render = Arrays.asList(args).contains("--render");
+            if(Arrays.asList(args).contains("--parallel")) {
+                Settings.PARALLEL_UPDATE = true;
+                Settings.PARALLEL_VERTEX_GENERATION = true;
+            }
+            window.runHeadless(steps, render);
+        } else {
+            window.run();
+        }
     }
 
 }
@@ -2,20 +2,27 @@ package gamepad;
 
 import org.joml.Matrix4f;
 import org.joml.Vector2f;
-import org.joml.Vector3f;
+import org.joml.Vector2fc;
 
 public class Camera {
 
     private Matrix4f projectionMatrix, viewMatrix, inverseProjection, inverseView;
-    public Vector2f position;
+    private Matrix4f viewProjection, inverseViewProjection;
+    private Vector2f position;
     private Vector2f projectionSize = new Vector2f(32.0f * 40.0f, 32.0f * 21.0f);
 
+    // Bumped whenever the position or projection changes, the view matrices are rebuilt lazily to match
+    private int version = 0;
+    private int matricesVersion = -1;
+
     public Camera(Vector2f position) {
         this.position = position;
         this.projectionMatrix = new Matrix4f();
         this.viewMatrix = new Matrix4f();
         this.inverseProjection = new Matrix4f();
         this.inverseView = new Matrix4f();
+        this.viewProjection = new Matrix4f();
+        this.inverseViewProjection = new Matrix4f();
 
         this.adjustProjection();
     }
@@ -24,22 +31,78 @@ public class Camera {
         projectionMatrix.identity();
         projectionMatrix.ortho(0.0f, projectionSize.x, 0.0f, projectionSize.y, 0.0f, 100.0f);
         projectionMatrix.invert(inverseProjection);
+        version++;
     }
 
-    public Matrix4f getViewMatrix() {
-        Vector3f cameraFront = new Vector3f(0.0f, 0.0f, -1.0f);
-        Vector3f cameraUp = new Vector3f(0.0f, 1.0f, 0.0f);
+    private void updateMatrices() {
+        if(matricesVersion == version) return;
+
+        // Looking down -z from 20 units in front of the position
         this.viewMatrix.identity();
-        this.viewMatrix.lookAt(new Vector3f(position.x, position.y, 20.0f),
-                cameraFront.add(position.x, position.y, 0.0f),
-                cameraUp);
-        this.viewMatrix.invert(inverseView);
+        this.viewMatrix.lookAt(position.x, position.y, 20.0f,
+                position.x, position.y, -1.0f,
+                0.0f, 1.0f, 0.0f);
+        this.viewMatrix.invertAffine(inverseView);
+
+        projectionMatrix.mul(viewMatrix, viewProjection);
+        inverseView.mul(inverseProjection, inverseViewProjection);
+
+        matricesVersion = version;
+    }
+
+    // Screen coordinates (origin top left, in pixels) to world coordinates, written into dest
+    public Vector2f screenToWorld(float screenX, float screenY, float screenWidth, float screenHeight, Vector2f dest) {
+        updateMatrices();
+
+        float ndcX = (screenX / screenWidth) * 2.0f - 1.0f;
+        float ndcY = ((screenHeight - screenY) / screenHeight) * 2.0f - 1.0f;
+
+        // Orthographic, so the inverse is affine and w stays 1
+        Matrix4f m = inverseViewProjection;
+        return dest.set(m.m00() * ndcX + m.m10() * ndcY + m.m30(),
+                m.m01() * ndcX + m.m11() * ndcY + m.m31());
+    }
+
+    public Vector2fc getPosition() { return this.position; }
+
+    public void setPosition(float x, float y) {
+        if(position.x == x && position.y == y) return;
+        position.set(x, y);
+        version++;
+    }
+
+    public void translate(float dx, float dy) {
+        setPosition(position.x + dx, position.y + dy);
+    }
+
+    public void setProjectionSize(float width, float height) {
+        projectionSize.set(width, height);
+        adjustProjection();
+    }
+
+    public Matrix4f getViewMatrix() {
+        updateMatrices();
         return this.viewMatrix;
     }
 
+    public Matrix4f getInverseView() {
+        updateMatrices();
+        return this.inverseView;
+    }
+
+    public Matrix4f getViewProjection() {
+        updateMatrices();
+        return this.viewProjection;
+    }
+
+    public Matrix4f getInverseViewProjection() {
+        updateMatrices();
+        return this.inverseViewProjection;
+    }
+
     public Matrix4f getProjectionMatrix() { return this.projectionMatrix; }
     public Matrix4f getInverseProjection() { return this.inverseProjection; }
-    public Matrix4f getInverseView() { return this.inverseView; }
 
-    public Vector2f getProjectionSize() { return this.projectionSize; }
+    public Vector2fc getProjectionSize() { return this.projectionSize; }
+    public int getVersion() { return this.version; }
 }
@@ -1,8 +1,10 @@
 package gamepad;
 
+import gamepad.jobs.JobSystem;
 import gamepad.listener.KeyListener;
 import gamepad.listener.MouseListener;
 import gamepad.scenes.Scene;
+import gamepad.utils.Profiler;
 import gamepad.utils.Settings;
 import imgui.*;
 import imgui.callback.ImStrConsumer;
@@ -180,15 +182,21 @@ public class ImGUILayer {
         imGuiGl3.init("#version 330 core");
     }
 
-    public void update(float deltaTime, Scene currentScene) {
+    // Builds the UI, may change the scene so it runs while game logic is paused
+    public void layout(float deltaTime, Scene currentScene) {
         this.startFrame(deltaTime);
 
         // Any Dear ImGui code SHOULD go between ImGui.newFrame()/ImGui.render() methods
         ImGui.newFrame();
         currentScene.sceneImgui();
+        Profiler.imgui();
+        JobSystem.imgui();
         ImGui.showDemoWindow();
         ImGui.render();
+    }
 
+    // Draws the UI built by the last layout(), the draw data stays valid until the next ImGui.newFrame()
+    public void draw() {
         this.endFrame();
     }
 
@@ -1,11 +1,22 @@
 package gamepad;
 
+import gamepad.jobs.Job;
+import gamepad.jobs.JobSystem;
+import gamepad.jobs.Phase;
 import gamepad.listener.KeyListener;
 import gamepad.listener.MouseListener;
+import gamepad.renderer.CameraBuffer;
 import gamepad.renderer.DebugDraw;
+import gamepad.renderer.GLState;
+import gamepad.renderer.Graphics;
+import gamepad.renderer.NullBackend;
+import gamepad.renderer.RenderStats;
 import gamepad.scenes.LevelEditorScene;
 import gamepad.scenes.LevelScene;
 import gamepad.scenes.Scene;
+import gamepad.utils.Profiler;
+import gamepad.utils.Settings;
+import gamepad.utils.Transform;
 import org.lwjgl.Version;
 import org.lwjgl.glfw.GLFWErrorCallback;
 import org.lwjgl.glfw.GLFWVidMode;
@@ -35,6 +46,32 @@ public class Window {
 
     private static Scene currentScene = null;
 
+    private static final int PROFILE_FRAME = Profiler.register("Frame");
+    private static final int PROFILE_POLL_EVENTS = Profiler.register("glfwPollEvents");
+    private static final int PROFILE_UPDATE = Profiler.register("Scene.update");
+    private static final int PROFILE_PREPARE = Profiler.register("Prepare");
+    private static final int PROFILE_IMGUI_LAYOUT = Profiler.register("ImGUILayer.layout");
+    private static final int PROFILE_IMGUI_DRAW = Profiler.register("ImGUILayer.draw");
+    private static final int PROFILE_SWAP_BUFFERS = Profiler.register("glfwSwapBuffers");
+    private static final int PROFILE_WAIT_UPDATE = Profiler.register("Wait for update");
+
+    // Runs the fixed steps of the next frame on a worker in pipelined mode, everything until
+    // JobSystem.wait() may overlap the GL work of the current frame
+    private static class SimulateJob extends Job {
+        int steps = 0;
+
+        SimulateJob() {
+            super("Simulate");
+        }
+
+        @Override
+        protected void execute() {
+            simulate(steps);
+        }
+    }
+
+    private final SimulateJob simulateJob = new SimulateJob();
+
 //    public float r = 38f/255f, g = 77f/255f, b = 142f/255f;
     private final float r = 1, g = 1, b = 1;
 
@@ -54,6 +91,8 @@ public class Window {
     }
 
     public static void changeScene(int newScene) {
+        if(currentScene != null) currentScene.destroy();
+
         switch (newScene) {
             case 0:
                 currentScene = new LevelEditorScene();
@@ -71,6 +110,15 @@ public class Window {
         currentScene.start();
     }
 
+    // Makes a new scene current without loading level.txt, for runs that must not depend on the saved level
+    public static void setScene(Scene newScene) {
+        if(currentScene != null) currentScene.destroy();
+
+        currentScene = newScene;
+        currentScene.init();
+        currentScene.start();
+    }
+
     public static Scene getScene() {
         return get().currentScene;
     }
@@ -80,7 +128,63 @@ public class Window {
 
         this.init();
         this.loop();
+        this.terminate();
+    }
+
+    // Runs the scene's simulation as fast as possible without a window or GL context and reports the
+    // throughput. With render set every step is also prepared and submitted to a counting backend.
+    public void runHeadless(int steps, boolean render) {
+        System.out.println("Initializing Gamepad Engine (headless) with LWJGL " + Version.getVersion() + "!");
 
+        NullBackend backend = new NullBackend();
+        Graphics.set(backend);
+        JobSystem.start();
+        Window.changeScene(0);
+
+        long start = System.nanoTime();
+        for(int i = 0; i < steps; i++) {
+            simulate(1);
+            if(render) {
+                currentScene.prepareRender(1.0f);
+                DebugDraw.prepare();
+                CameraBuffer.prepare(currentScene.getCamera());
+
+                CameraBuffer.upload();
+                DebugDraw.draw();
+                currentScene.render();
+            }
+            Profiler.endFrame();
+            JobSystem.endFrame();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("Simulated %d steps in %.3f s (%.1f steps/s, %.1fx real time)%n",
+                steps, seconds, steps / seconds, steps * Settings.FIXED_TIMESTEP / seconds);
+        if(Settings.PROFILING) {
+            System.out.printf("Step p50: %.3f ms, p95: %.3f ms, p99: %.3f ms%n",
+                    Profiler.percentile(0.50f), Profiler.percentile(0.95f), Profiler.percentile(0.99f));
+        }
+        if(render) System.out.println("Backend " + backend);
+        System.out.println(JobSystem.summary());
+
+        // Nothing is saved, a benchmark should not overwrite the level
+        currentScene.destroy();
+        DebugDraw.destroy();
+        CameraBuffer.destroy();
+        JobSystem.shutdown();
+    }
+
+    // Runs fixed steps of the current scene
+    public static void simulate(int steps) {
+        for(int i = 0; i < steps; i++) {
+            Transform.beginStep();
+            DebugDraw.beginStep();
+            Profiler.begin(PROFILE_UPDATE);
+            currentScene.update(Settings.FIXED_TIMESTEP);
+            Profiler.end(PROFILE_UPDATE);
+        }
+    }
+
+    private void terminate() {
         // Free Memory
         glfwFreeCallbacks(glfwWindow);
         glfwDestroyWindow(glfwWindow);
@@ -151,7 +255,7 @@ public class Window {
         glfwMakeContextCurrent(glfwWindow);
 
         // Enable v-sync
-        glfwSwapInterval(1);
+        glfwSwapInterval(Settings.VSYNC ? 1 : 0);
 
         // Make the window visible
         glfwShowWindow(glfwWindow);
@@ -162,10 +266,12 @@ public class Window {
         // creates the GLCapabilities instance and makes the OpenGL
         // bindings available for use.
         GL.createCapabilities();
+        // The GL thread is the job system's main thread
+        JobSystem.start();
 
         // Blend Alpha
-        glEnable(GL_BLEND);
-        glBlendFunc(GL_ONE, GL_ONE_MINUS_SRC_ALPHA);
+        Graphics.get().enable(GL_BLEND);
+        Graphics.get().blendFunc(GL_ONE, GL_ONE_MINUS_SRC_ALPHA);
         this.imGUILayer = new ImGUILayer(glfwWindow);
         this.imGUILayer.initImGui();
 
@@ -173,33 +279,105 @@ public class Window {
     }
 
     public void loop() {
-
-        float endTime, beginTime = (float) glfwGetTime();
-        float deltaTime = -1f;
+        double lastTime = glfwGetTime();
+        double accumulator = 0;
+        // In pipelined mode the frame being drawn was simulated one frame earlier, and so was its alpha
+        float renderAlpha = 1.0f;
 
         while(!glfwWindowShouldClose(glfwWindow)) {
+            Profiler.begin(PROFILE_FRAME);
+            Profiler.begin(PROFILE_POLL_EVENTS);
             glfwPollEvents(); // Handle Events
+            Profiler.end(PROFILE_POLL_EVENTS);
+            JobSystem.barrier(Phase.INPUT);
+
+            // Switching modes is safe here, the last frame's simulation is complete
+            boolean pipelined = Settings.PIPELINED_RENDERING;
+
+            double time = glfwGetTime();
+            double frameTime = time - lastTime;
+            lastTime = time;
+
+            // Turn elapsed time into fixed steps
+            accumulator += frameTime;
+            int steps = 0;
+            while(accumulator >= Settings.FIXED_TIMESTEP && steps < Settings.MAX_STEPS_PER_FRAME) {
+                accumulator -= Settings.FIXED_TIMESTEP;
+                steps++;
+            }
+            // Too far behind, drop the backlog instead of trying to catch up
+            if(accumulator >= Settings.FIXED_TIMESTEP) accumulator %= Settings.FIXED_TIMESTEP;
+            float alpha = Settings.INTERPOLATE_RENDERING ? (float) (accumulator / Settings.FIXED_TIMESTEP) : 1.0f;
+
+            if(!pipelined) {
+                simulate(steps);
+                JobSystem.barrier(Phase.UPDATE);
+                renderAlpha = alpha;
+            }
 
-            DebugDraw.beginFrame();
+            // ImGui and anything outside the renderer may have changed GL state since last frame. Forgotten
+            // before prepare, which creates, merges and destroys batches through GLState.
+            GLState.invalidate();
+
+            // Game logic is paused, take everything this frame draws from the scene
+            Profiler.begin(PROFILE_PREPARE);
+            currentScene.prepareRender(renderAlpha);
+            DebugDraw.prepare();
+            CameraBuffer.prepare(currentScene.getCamera());
+            JobSystem.barrier(Phase.RENDER_PREP);
+            Profiler.end(PROFILE_PREPARE);
+
+            Profiler.begin(PROFILE_IMGUI_LAYOUT);
+            this.imGUILayer.layout((float) frameTime, currentScene);
+            Profiler.end(PROFILE_IMGUI_LAYOUT);
+
+            // Counted from here so the stats window shows one whole frame
+            RenderStats.beginFrame();
+
+            // In pipelined mode the next frame's logic runs while this one is drawn
+            boolean stepped = pipelined && steps > 0;
+            if(stepped) {
+                simulateJob.steps = steps;
+                JobSystem.schedule(Phase.UPDATE, simulateJob);
+            }
+            if(pipelined) renderAlpha = alpha;
 
             // Clear Screen
-            glClearColor(r, g, b, 1f);
-            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+            Graphics.get().clearColor(r, g, b, 1f);
+            Graphics.get().clear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 
-            if(deltaTime >= 0) {
-                DebugDraw.draw();
-                currentScene.update(deltaTime);
-            }
+            CameraBuffer.upload();
+            DebugDraw.draw();
+            currentScene.render();
+            JobSystem.runMainThreadJobs();
+            JobSystem.barrier(Phase.SUBMIT);
 
-            this.imGUILayer.update(deltaTime, currentScene);
+            Profiler.begin(PROFILE_IMGUI_DRAW);
+            this.imGUILayer.draw();
+            Profiler.end(PROFILE_IMGUI_DRAW);
 
+            Profiler.begin(PROFILE_SWAP_BUFFERS);
             glfwSwapBuffers(glfwWindow);
+            Profiler.end(PROFILE_SWAP_BUFFERS);
+
+            if(stepped) {
+                Profiler.begin(PROFILE_WAIT_UPDATE);
+                JobSystem.wait(simulateJob);
+                JobSystem.barrier(Phase.UPDATE);
+                Profiler.end(PROFILE_WAIT_UPDATE);
+            }
 
-            endTime = (float) glfwGetTime();
-            deltaTime = endTime - beginTime;
-            beginTime = endTime;
+            Profiler.end(PROFILE_FRAME);
+            // Every thread is idle here, so the frame's samples can be handed to the profiler window
+            Profiler.endFrame();
+            JobSystem.endFrame();
         }
+        JobSystem.shutdown();
+
         currentScene.saveExit();
+        currentScene.destroy();
+        DebugDraw.destroy();
+        CameraBuffer.destroy();
     }
 
     public static int getWidth() { return get().width; }
@@ -2,6 +2,8 @@ package gamepad.data.typeAdapter;
 
 import com.google.gson.*;
 import gamepad.object.components.Component;
+import gamepad.object.components.SpriteRenderer;
+import org.joml.Vector4f;
 
 import java.lang.reflect.Type;
 
@@ -14,8 +16,16 @@ public class ComponentAdapter implements JsonSerializer<Component>, JsonDeserial
         String type = jsonObject.get("type").getAsString();
         JsonElement element = jsonObject.get("properties");
 
+        // Kept in a column store, not a field
+        JsonElement color = null;
+        if(element.isJsonObject()) color = element.getAsJsonObject().remove("color");
+
         try {
-            return context.deserialize(element, Class.forName(type));
+            Component component = context.deserialize(element, Class.forName(type));
+            if(color != null && component instanceof SpriteRenderer) {
+                ((SpriteRenderer) component).setColor((Vector4f) context.deserialize(color, Vector4f.class));
+            }
+            return component;
         } catch (ClassNotFoundException e) {
             throw new JsonParseException("Unknown element type: " + type, e);
         }
@@ -25,7 +35,12 @@ public class ComponentAdapter implements JsonSerializer<Component>, JsonDeserial
     public JsonElement serialize(Component src, Type typeOfSrc, JsonSerializationContext context) {
         JsonObject result = new JsonObject();
         result.add("type", new JsonPrimitive(src.getClass().getCanonicalName()));
-        result.add("properties", context.serialize(src, src.getClass()));
+        JsonElement properties = context.serialize(src, src.getClass());
+        // Written like the Vector4f field sprite renderers used to have
+        if(src instanceof SpriteRenderer) {
+            properties.getAsJsonObject().add("color", context.serialize(((SpriteRenderer) src).getColor(new Vector4f())));
+        }
+        result.add("properties", properties);
         return result;
     }
 }
@@ -0,0 +1,35 @@
+package gamepad.data.typeAdapter;
+
+import com.google.gson.*;
+import gamepad.utils.Transform;
+
+import java.lang.reflect.Type;
+
+// Transforms keep their values in column stores, written in the same layout as the old Vector2f fields
+public class TransformAdapter implements JsonSerializer<Transform>, JsonDeserializer<Transform> {
+
+    @Override
+    public Transform deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+        JsonObject jsonObject = json.getAsJsonObject();
+        JsonObject position = jsonObject.getAsJsonObject("position");
+        JsonObject scale = jsonObject.getAsJsonObject("scale");
+
+        return new Transform(position.get("x").getAsFloat(), position.get("y").getAsFloat(),
+                scale.get("x").getAsFloat(), scale.get("y").getAsFloat());
+    }
+
+    @Override
+    public JsonElement serialize(Transform src, Type typeOfSrc, JsonSerializationContext context) {
+        JsonObject result = new JsonObject();
+        result.add("position", vector(src.getX(), src.getY()));
+        result.add("scale", vector(src.getScaleX(), src.getScaleY()));
+        return result;
+    }
+
+    private static JsonObject vector(float x, float y) {
+        JsonObject vector = new JsonObject();
+        vector.addProperty("x", x);
+        vector.addProperty("y", y);
+        return vector;
+    }
+}
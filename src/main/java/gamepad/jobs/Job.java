@@ -0,0 +1,101 @@
+package gamepad.jobs;
+
+import gamepad.utils.Profiler;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A piece of work for the JobSystem. Jobs are created once and scheduled again every frame, so scheduling
+// never allocates. Dependencies are declared once with dependsOn(), a scheduled job waits for the ones that
+// were scheduled before it and are still running. Dependencies that are not scheduled count as done.
+// A job whose dependency failed is skipped and fails with the same exception.
+public abstract class Job {
+
+    final String name;
+    final int scope;
+    final boolean mainThread;
+
+    private Job[] dependencies = new Job[0];
+
+    // Jobs scheduled while this one was running, released when it completes. Guarded by this.
+    private Job[] waiters = new Job[4];
+    private int waiterCount = 0;
+    private boolean complete = true;
+
+    // Running dependencies, plus one while the job is being scheduled
+    final AtomicInteger blockers = new AtomicInteger();
+    // Parts that have not finished yet
+    final AtomicInteger unfinishedParts = new AtomicInteger();
+    Phase phase;
+    // The first exception of any part or dependency, kept until the job is scheduled again
+    volatile Throwable failure = null;
+
+    public Job(String name) {
+        this(name, false);
+    }
+
+    // Main thread jobs only run on the thread that started the job system, the one that owns the GL context
+    public Job(String name, boolean mainThread) {
+        this.name = name;
+        this.scope = Profiler.register(name);
+        this.mainThread = mainThread;
+    }
+
+    protected abstract void execute();
+
+    // Number of parts run for one scheduling, each may run on another thread
+    int parts() {
+        return 1;
+    }
+
+    void run(int part) {
+        execute();
+    }
+
+    // Replaces the dependencies, call it while setting up and not while the job is scheduled
+    public void dependsOn(Job... dependencies) {
+        this.dependencies = dependencies.clone();
+    }
+
+    Job[] getDependencies() { return this.dependencies; }
+
+    public synchronized boolean isComplete() { return this.complete; }
+
+    synchronized void reset(Phase phase) {
+        assert complete : "Error: (Job) '" + name + "' is already scheduled";
+
+        this.complete = false;
+        this.phase = phase;
+        this.failure = null;
+        this.blockers.set(1);
+        this.unfinishedParts.set(parts());
+    }
+
+    // False if the job is already complete and the waiter does not have to wait for it
+    synchronized boolean addWaiter(Job waiter) {
+        if(complete) return false;
+
+        if(waiterCount == waiters.length) waiters = Arrays.copyOf(waiters, waiterCount * 2);
+        waiters[waiterCount++] = waiter;
+        return true;
+    }
+
+    synchronized void fail(Throwable failure) {
+        if(this.failure == null) this.failure = failure;
+    }
+
+    // Releases the waiters while holding the lock, a waiter may schedule this job again right after
+    synchronized void complete() {
+        complete = true;
+        for(int i = 0; i < waiterCount; i++) {
+            Job waiter = waiters[i];
+            waiters[i] = null;
+            if(failure != null) waiter.fail(failure);
+            if(waiter.blockers.decrementAndGet() == 0) JobSystem.release(waiter);
+        }
+        waiterCount = 0;
+    }
+
+    public String getName() { return this.name; }
+
+}
@@ -0,0 +1,70 @@
+package gamepad.jobs;
+
+import java.util.Arrays;
+
+// Ring buffer of job parts. The owner pushes and pops at the back, other threads steal from the front.
+// Grows when full and never shrinks, so a frame like the last one does not allocate.
+class JobQueue {
+
+    private Job[] jobs = new Job[256];
+    private int[] parts = new int[256];
+    private int head = 0;
+    private int size = 0;
+
+    synchronized void push(Job job, int part) {
+        if(size == jobs.length) grow();
+
+        int index = (head + size) & (jobs.length - 1);
+        jobs[index] = job;
+        parts[index] = part;
+        size++;
+    }
+
+    // The part is written to the first element of part, null if the queue is empty
+    synchronized Job pop(int[] part) {
+        if(size == 0) return null;
+
+        size--;
+        int index = (head + size) & (jobs.length - 1);
+        return take(index, part);
+    }
+
+    synchronized Job steal(int[] part) {
+        if(size == 0) return null;
+
+        int index = head;
+        head = (head + 1) & (jobs.length - 1);
+        size--;
+        return take(index, part);
+    }
+
+    private Job take(int index, int[] part) {
+        Job job = jobs[index];
+        jobs[index] = null;
+        part[0] = parts[index];
+        return job;
+    }
+
+    // Capacity stays a power of two
+    private void grow() {
+        Job[] newJobs = new Job[jobs.length * 2];
+        int[] newParts = new int[parts.length * 2];
+        for(int i = 0; i < size; i++) {
+            int index = (head + i) & (jobs.length - 1);
+            newJobs[i] = jobs[index];
+            newParts[i] = parts[index];
+        }
+        jobs = newJobs;
+        parts = newParts;
+        head = 0;
+    }
+
+    synchronized void clear() {
+        Arrays.fill(jobs, null);
+        head = 0;
+        size = 0;
+    }
+
+    synchronized int size() { return this.size; }
+
+}
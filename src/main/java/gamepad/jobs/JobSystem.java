@@ -0,0 +1,374 @@
+package gamepad.jobs;
+
+import gamepad.utils.Profiler;
+import gamepad.utils.Settings;
+import imgui.ImGui;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Work-stealing job scheduler shared by the engine. Every worker owns a queue and steals from the others
+// when it runs dry. Threads outside the pool put their jobs into a shared queue and run jobs while they wait
+// for one, the main thread also runs the jobs bound to it. Started by the main thread, or lazily by the
+// first schedule() on whichever thread calls it. The first failure of a phase is rethrown by wait(),
+// barrier() or endFrame(), whichever comes first.
+public class JobSystem {
+
+    // Idle loops before a thread parks until something is scheduled
+    private static final int SPINS_BEFORE_SLEEP = 256;
+
+    // Written by the thread itself, read and reset by endFrame() while no job runs
+    private static class Stats {
+        final String thread;
+        // Time in jobs this frame, including time a job spends waiting for others
+        long busy = 0;
+        int jobs = 0, steals = 0;
+        int depth = 0;
+
+        float utilization = 0;
+        int lastJobs = 0, lastSteals = 0;
+        long totalBusy = 0, totalJobs = 0, totalSteals = 0;
+
+        Stats(String thread) {
+            this.thread = thread;
+        }
+    }
+
+    private static class Worker extends Thread {
+        final JobQueue queue = new JobQueue();
+        final Stats stats;
+        final int[] part = new int[1];
+
+        Worker(int index) {
+            super("Job worker " + index);
+            this.stats = new Stats(getName());
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            work(this);
+        }
+    }
+
+    private static Worker[] workers = new Worker[0];
+    private static Thread mainThread = null;
+    private static Stats mainStats = new Stats("main");
+    private static volatile boolean running = false;
+
+    private static final JobQueue sharedQueue = new JobQueue();
+    private static final JobQueue mainQueue = new JobQueue();
+    // Scheduled and not complete jobs of every phase
+    private static final AtomicInteger[] outstanding = new AtomicInteger[Phase.values().length];
+    // First failed job of every phase that was not reported yet
+    private static final AtomicReference<RuntimeException>[] failures = createFailures();
+    private static final ThreadLocal<int[]> externalPart = ThreadLocal.withInitial(() -> new int[1]);
+
+    // Bumped whenever there is new work or a job completed, sleeping threads wake up when it changes
+    private static final Object signal = new Object();
+    private static final AtomicInteger signalVersion = new AtomicInteger();
+    private static final AtomicInteger sleeping = new AtomicInteger();
+
+    private static long startTime = 0, frameStart = 0;
+
+    static {
+        for(int i = 0; i < outstanding.length; i++) outstanding[i] = new AtomicInteger();
+    }
+
+    // The calling thread becomes the main thread, Settings.JOB_WORKERS threads are started besides it
+    public static synchronized void start() {
+        if(running) return;
+
+        mainThread = Thread.currentThread();
+        mainStats = new Stats(mainThread.getName());
+        running = true;
+
+        workers = new Worker[Math.max(0, Settings.JOB_WORKERS)];
+        for(int i = 0; i < workers.length; i++) workers[i] = new Worker(i);
+        // Workers steal from each other, so all of them exist before the first one runs
+        for(Worker worker : workers) worker.start();
+
+        startTime = frameStart = System.nanoTime();
+    }
+
+    // Only call while nothing is scheduled
+    public static synchronized void shutdown() {
+        if(!running) return;
+
+        running = false;
+        signal();
+        for(Worker worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        workers = new Worker[0];
+        sharedQueue.clear();
+        mainQueue.clear();
+        mainThread = null;
+    }
+
+    // Runs the job once its dependencies are complete. The job must not be scheduled already.
+    public static void schedule(Phase phase, Job job) {
+        if(!running) start();
+
+        job.reset(phase);
+        outstanding[phase.ordinal()].incrementAndGet();
+        for(Job dependency : job.getDependencies()) {
+            job.blockers.incrementAndGet();
+            if(!dependency.addWaiter(job)) {
+                job.blockers.decrementAndGet();
+                if(dependency.failure != null) job.fail(dependency.failure);
+            }
+        }
+
+        if(job.blockers.decrementAndGet() == 0) release(job);
+    }
+
+    // Schedules the job and waits for it
+    public static void run(Phase phase, Job job) {
+        schedule(phase, job);
+        wait(job);
+    }
+
+    // Runs other jobs until the job is complete, rethrows what the job or one of its dependencies threw
+    public static void wait(Job job) {
+        helpUntil(job, null);
+
+        Throwable failure = job.failure;
+        if(failure == null) return;
+
+        // Reported here, so the phase does not report it again
+        AtomicReference<RuntimeException> phaseFailure = failures[job.phase.ordinal()];
+        RuntimeException reported = phaseFailure.get();
+        if(reported != null && reported.getCause() == failure && phaseFailure.compareAndSet(reported, null)) throw reported;
+        throw new RuntimeException("Error: (JobSystem) Job '" + job.name + "' failed", failure);
+    }
+
+    // Runs jobs until every job scheduled into the phase is complete, rethrows the phase's first failure
+    public static void barrier(Phase phase) {
+        helpUntil(null, phase);
+
+        RuntimeException failure = failures[phase.ordinal()].getAndSet(null);
+        if(failure != null) throw failure;
+    }
+
+    // Runs the main thread jobs that are ready, call it from the main thread where GL work may happen
+    public static void runMainThreadJobs() {
+        if(!running) return;
+        assert Thread.currentThread() == mainThread : "Error: (JobSystem) Main thread jobs run on '" + mainThread.getName() + "' only";
+
+        int[] part = externalPart.get();
+        for(Job job = mainQueue.steal(part); job != null; job = mainQueue.steal(part)) {
+            runPart(job, part[0], mainStats);
+        }
+    }
+
+    // All dependencies are complete, queue the parts. Skipped if a dependency failed.
+    static void release(Job job) {
+        int parts = job.unfinishedParts.get();
+        if(parts == 0 || job.failure != null) {
+            finish(job);
+            return;
+        }
+
+        Thread thread = Thread.currentThread();
+        JobQueue queue = job.mainThread ? mainQueue : thread instanceof Worker ? ((Worker) thread).queue : sharedQueue;
+        // Popped from the back, so the first part runs first
+        for(int part = parts - 1; part >= 0; part--) queue.push(job, part);
+        signal();
+    }
+
+    private static void finish(Job job) {
+        // The job may be scheduled again once complete
+        Phase phase = job.phase;
+        if(job.failure != null) {
+            failures[phase.ordinal()].compareAndSet(null,
+                    new RuntimeException("Error: (JobSystem) Job '" + job.name + "' failed", job.failure));
+        }
+        job.complete();
+        outstanding[phase.ordinal()].decrementAndGet();
+        signal();
+    }
+
+    private static void runPart(Job job, int part, Stats stats) {
+        long start = System.nanoTime();
+        if(stats != null) stats.depth++;
+
+        Profiler.begin(job.scope);
+        try {
+            // The other parts are skipped once one failed
+            if(job.failure == null) job.run(part);
+        } catch (Throwable t) {
+            job.fail(t);
+        }
+        Profiler.end(job.scope);
+
+        if(stats != null) {
+            stats.jobs++;
+            // Jobs run while waiting inside another job are already counted by it
+            if(--stats.depth == 0) stats.busy += System.nanoTime() - start;
+        }
+
+        if(job.unfinishedParts.decrementAndGet() == 0) finish(job);
+    }
+
+    private static void work(Worker worker) {
+        int idle = 0;
+        while(running) {
+            int version = signalVersion.get();
+            if(runOne()) {
+                idle = 0;
+            } else if(++idle < SPINS_BEFORE_SLEEP) {
+                Thread.onSpinWait();
+            } else {
+                idle = 0;
+                sleep(version);
+            }
+        }
+    }
+
+    // Waits for either the job or the phase
+    private static void helpUntil(Job job, Phase phase) {
+        int idle = 0;
+        while(true) {
+            // Read before checking, a completion after the check changes it and cancels the sleep
+            int version = signalVersion.get();
+            if(job != null ? job.isComplete() : outstanding[phase.ordinal()].get() == 0) return;
+
+            if(runOne()) {
+                idle = 0;
+            } else if(++idle < SPINS_BEFORE_SLEEP) {
+                Thread.onSpinWait();
+            } else {
+                idle = 0;
+                sleep(version);
+            }
+        }
+    }
+
+    // Own queue first, then the main thread's jobs, the shared queue and the other workers
+    private static boolean runOne() {
+        Thread thread = Thread.currentThread();
+        Worker worker = thread instanceof Worker ? (Worker) thread : null;
+        int[] part = worker != null ? worker.part : externalPart.get();
+        Stats stats = worker != null ? worker.stats : thread == mainThread ? mainStats : null;
+
+        Job job = null;
+        if(worker != null) job = worker.queue.pop(part);
+        if(job == null && thread == mainThread) job = mainQueue.steal(part);
+        if(job == null) job = worker != null ? sharedQueue.steal(part) : sharedQueue.pop(part);
+
+        if(job == null) {
+            Worker[] victims = workers;
+            int first = victims.length > 0 ? ThreadLocalRandom.current().nextInt(victims.length) : 0;
+            for(int i = 0; i < victims.length && job == null; i++) {
+                Worker victim = victims[(first + i) % victims.length];
+                if(victim != worker) job = victim.queue.steal(part);
+            }
+            if(job != null && stats != null) stats.steals++;
+        }
+
+        if(job == null) return false;
+        runPart(job, part[0], stats);
+        return true;
+    }
+
+    private static void signal() {
+        signalVersion.incrementAndGet();
+        if(sleeping.get() > 0) {
+            synchronized(signal) {
+                signal.notifyAll();
+            }
+        }
+    }
+
+    // Returns once the version changed, counting as sleeping before the check pairs with signal()
+    private static void sleep(int version) {
+        synchronized(signal) {
+            sleeping.incrementAndGet();
+            try {
+                while(signalVersion.get() == version) signal.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                sleeping.decrementAndGet();
+            }
+        }
+    }
+
+    // Called by the main thread at the end of every frame, while no job runs. Rethrows a failure nothing
+    // waited for, so a failed frame cannot pass silently.
+    public static void endFrame() {
+        long now = System.nanoTime();
+        long duration = now - frameStart;
+        frameStart = now;
+        if(!running) return;
+
+        endFrame(mainStats, duration);
+        for(Worker worker : workers) endFrame(worker.stats, duration);
+
+        for(AtomicReference<RuntimeException> phaseFailure : failures) {
+            RuntimeException failure = phaseFailure.getAndSet(null);
+            if(failure != null) throw failure;
+        }
+    }
+
+    private static void endFrame(Stats stats, long duration) {
+        stats.utilization = duration > 0 ? Math.min(1.0f, stats.busy / (float) duration) : 0.0f;
+        stats.lastJobs = stats.jobs;
+        stats.lastSteals = stats.steals;
+        stats.totalBusy += stats.busy;
+        stats.totalJobs += stats.jobs;
+        stats.totalSteals += stats.steals;
+        stats.busy = 0;
+        stats.jobs = 0;
+        stats.steals = 0;
+    }
+
+    public static void imgui() {
+        ImGui.begin("Jobs");
+        ImGui.text("Workers: " + workers.length + ", queued: " + sharedQueue.size() + " shared, " + mainQueue.size() + " main thread");
+
+        statsBar(mainStats);
+        for(Worker worker : workers) statsBar(worker.stats);
+
+        ImGui.end();
+    }
+
+    private static void statsBar(Stats stats) {
+        ImGui.progressBar(stats.utilization, -1.0f, 0.0f, String.format("%s: %.0f%%, %d jobs, %d steals",
+                stats.thread, stats.utilization * 100.0f, stats.lastJobs, stats.lastSteals));
+    }
+
+    // Time every thread spent in jobs since start(), counted up to the last endFrame()
+    public static String summary() {
+        long duration = Math.max(1, frameStart - startTime);
+        StringBuilder builder = new StringBuilder("Job workers: " + workers.length);
+
+        builder.append(String.format("%n  %s: %.1f%% busy, %d jobs", mainStats.thread,
+                100.0 * mainStats.totalBusy / duration, mainStats.totalJobs));
+        for(Worker worker : workers) {
+            Stats stats = worker.stats;
+            builder.append(String.format("%n  %s: %.1f%% busy, %d jobs, %d steals", stats.thread,
+                    100.0 * stats.totalBusy / duration, stats.totalJobs, stats.totalSteals));
+        }
+
+        return builder.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AtomicReference<RuntimeException>[] createFailures() {
+        AtomicReference<RuntimeException>[] failures = new AtomicReference[Phase.values().length];
+        for(int i = 0; i < failures.length; i++) failures[i] = new AtomicReference<>();
+        return failures;
+    }
+
+    public static int getWorkerCount() { return workers.length; }
+    public static boolean isMainThread() { return Thread.currentThread() == mainThread; }
+
+}
@@ -0,0 +1,10 @@
+package gamepad.jobs;
+
+// The parts of a frame. Every job is scheduled into one and JobSystem.barrier() waits for all jobs of a
+// phase, so a phase can rely on the work of the ones before it being done.
+public enum Phase {
+    INPUT,
+    UPDATE,
+    RENDER_PREP,
+    SUBMIT
+}
@@ -0,0 +1,38 @@
+package gamepad.jobs;
+
+// A job over the indices [0, count), split into parts of at most grain indices that the workers share
+public abstract class RangeJob extends Job {
+
+    private int count = 0;
+    private int grain = 1;
+
+    public RangeJob(String name) {
+        super(name);
+    }
+
+    protected abstract void execute(int from, int to);
+
+    // Set before every scheduling
+    public void setRange(int count, int grain) {
+        assert grain > 0 : "Error: (RangeJob) Grain of '" + name + "' has to be positive";
+        this.count = count;
+        this.grain = grain;
+    }
+
+    @Override
+    protected void execute() {
+        execute(0, count);
+    }
+
+    @Override
+    int parts() {
+        return (count + grain - 1) / grain;
+    }
+
+    @Override
+    void run(int part) {
+        int from = part * grain;
+        execute(from, Math.min(count, from + grain));
+    }
+
+}
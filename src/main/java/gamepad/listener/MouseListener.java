@@ -1,7 +1,7 @@
 package gamepad.listener;
 
 import gamepad.Window;
-import org.joml.Vector4f;
+import org.joml.Vector2f;
 
 import static org.lwjgl.glfw.GLFW.GLFW_PRESS;
 import static org.lwjgl.glfw.GLFW.GLFW_RELEASE;
@@ -15,6 +15,7 @@ public class MouseListener {
 
     private boolean[] mouseButtonPressed = new boolean[9];
     private boolean isDragging;
+    private Vector2f ortho = new Vector2f();
 
     private MouseListener() {
         this.scrollX = 0;
@@ -69,23 +70,13 @@ public class MouseListener {
     public static float getScrollX() { return (float) get().scrollX; }
     public static float getScrollY() { return (float) get().scrollY; }
 
-    public static float getOrthoX() {
-        float currentX = getX();
-        currentX = (currentX / (float) Window.getWidth()) * 2f - 1f;
-        Vector4f tmp = new Vector4f(currentX, 0, 0, 1);
-        tmp.mul(Window.getScene().getCamera().getInverseProjection()).mul(Window.getScene().getCamera().getInverseView());
-        currentX = tmp.x;
+    public static float getOrthoX() { return getOrtho().x; }
+    public static float getOrthoY() { return getOrtho().y; }
 
-        return currentX;
-    }
-    public static float getOrthoY() {
-        float currentY = Window.getHeight() - getY();
-        currentY = (currentY / (float) Window.getHeight()) * 2f - 1f;
-        Vector4f tmp = new Vector4f(0, currentY, 0, 1);
-        tmp.mul(Window.getScene().getCamera().getInverseProjection()).mul(Window.getScene().getCamera().getInverseView());
-        currentY = tmp.y;
-
-        return currentY;
+    // Mouse position in world coordinates, reuses one vector
+    private static Vector2f getOrtho() {
+        return Window.getScene().getCamera().screenToWorld(getX(), getY(),
+                Window.getWidth(), Window.getHeight(), get().ortho);
     }
 
     public static boolean isDragging() { return get().isDragging; }
@@ -0,0 +1,50 @@
+package gamepad.object;
+
+import gamepad.object.components.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Dense ids for component classes, handed out the first time a class is looked up.
+// Game objects index their components by these ids, see GameObject.getComponent().
+public class ComponentTypes {
+
+    private static final AtomicInteger nextId = new AtomicInteger(0);
+
+    private static final ClassValue<Integer> ids = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return nextId.getAndIncrement();
+        }
+    };
+
+    // Ids of a class and of every superclass up to Component, the types a component can be looked up by
+    private static final ClassValue<int[]> hierarchies = new ClassValue<int[]>() {
+        @Override
+        protected int[] computeValue(Class<?> type) {
+            int depth = 0;
+            for(Class<?> c = type; c != null && Component.class.isAssignableFrom(c); c = c.getSuperclass()) depth++;
+
+            int[] hierarchy = new int[depth];
+            Class<?> c = type;
+            for(int i = 0; i < depth; i++) {
+                hierarchy[i] = id(c);
+                c = c.getSuperclass();
+            }
+            return hierarchy;
+        }
+    };
+
+    public static int id(Class<?> type) {
+        return ids.get(type);
+    }
+
+    public static int[] hierarchy(Class<? extends Component> type) {
+        return hierarchies.get(type);
+    }
+
+    // Upper bound of every id handed out so far
+    public static int count() {
+        return nextId.get();
+    }
+
+}
@@ -1,9 +1,11 @@
 package gamepad.object;
 
 import gamepad.object.components.Component;
+import gamepad.object.components.UpdateList;
 import gamepad.utils.Transform;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class GameObject {
@@ -13,6 +15,10 @@ public class GameObject {
 
     private String name;
     private ArrayList<Component> components;
+    // Components by ComponentTypes id
+    private transient Component[] componentIndex = null;
+    // Update list of the scene this object is in
+    private transient UpdateList updateList = null;
 
     public Transform transform;
     private int zIndex;
@@ -26,35 +32,80 @@ public class GameObject {
         this.uid = ID_COUNTER++;
     }
 
+    // O(1), the index holds the first component of every type and supertype on this object
     public <T extends Component> T getComponent(Class<T> componentClass) {
-        for(Component c : components) {
-            if(componentClass.isAssignableFrom(c.getClass())) {
-                try {
-                    return componentClass.cast(c);
-                } catch(ClassCastException e) {
-                    e.printStackTrace();
-                    assert false : "Error: Casing component.";
-                }
-            }
-        }
+        int id = ComponentTypes.id(componentClass);
+        Component[] index = getComponentIndex();
+        if(id >= index.length) return null;
 
-        return null;
+        return componentClass.cast(index[id]);
     }
 
     public <T extends Component> void removeComponent(Class<T> componentClass) {
-        for(int i = 0; i < components.size(); i++) {
-            Component c = components.get(i);
-            if(componentClass.isAssignableFrom(c.getClass())) {
-                components.remove(i);
-                return;
-            }
-        }
+        Component component = getComponent(componentClass);
+        if(component == null) return;
+
+        components.remove(component);
+        unindex(component);
+        if(updateList != null) updateList.remove(component);
     }
 
     public void addComponent(Component component) {
         component.generateID();
         this.components.add(component);
         component.gameObject = this;
+        index(component);
+        if(updateList != null) updateList.add(component);
+    }
+
+    private Component[] getComponentIndex() {
+        // Not serialized, rebuilt the first time it is needed
+        if(componentIndex == null) {
+            componentIndex = new Component[0];
+            for(Component c : components) index(c);
+        }
+        return componentIndex;
+    }
+
+    private void index(Component component) {
+        Component[] index = getComponentIndex();
+        int[] types = ComponentTypes.hierarchy(component.getClass());
+
+        // Every id handed out so far fits, so growing is rare
+        int maxType = 0;
+        for(int type : types) maxType = Math.max(maxType, type);
+        if(maxType >= index.length) {
+            index = Arrays.copyOf(index, Math.max(maxType + 1, ComponentTypes.count()));
+            componentIndex = index;
+        }
+
+        // Earlier components keep their entries, the same one the list order would find first
+        for(int type : types) {
+            if(index[type] == null) index[type] = component;
+        }
+    }
+
+    private void unindex(Component component) {
+        Component[] index = getComponentIndex();
+        for(int type : ComponentTypes.hierarchy(component.getClass())) {
+            if(index[type] != component) continue;
+
+            // Fall back to the next component of that type in list order
+            index[type] = null;
+            for(Component c : components) {
+                if(contains(ComponentTypes.hierarchy(c.getClass()), type)) {
+                    index[type] = c;
+                    break;
+                }
+            }
+        }
+    }
+
+    private static boolean contains(int[] types, int type) {
+        for(int t : types) {
+            if(t == type) return true;
+        }
+        return false;
     }
 
     public void update(float deltaTime) {
@@ -73,6 +124,26 @@ public class GameObject {
         for(Component component : components) component.start();
     }
 
+    // Moves the components that update into the given list, null takes them out of the current one
+    public void setUpdateList(UpdateList updateList) {
+        if(this.updateList == updateList) return;
+
+        if(this.updateList != null) {
+            for(Component component : components) this.updateList.remove(component);
+        }
+        this.updateList = updateList;
+        if(updateList != null) {
+            for(Component component : components) updateList.add(component);
+        }
+    }
+
+    // Gives back what the object holds in the column stores, called when it leaves the scene. An object
+    // that is dropped without being destroyed, by its scene or directly, leaks its store slots.
+    public void destroy() {
+        for(Component component : components) component.destroy();
+        transform.release();
+    }
+
     public int getzIndex() { return this.zIndex; }
     public int getUid() { return this.uid; }
     public String getName() { return this.name; }
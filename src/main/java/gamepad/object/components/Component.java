@@ -14,6 +14,8 @@ public abstract class Component {
     private int uid = -1;
 
     public transient GameObject gameObject = null;
+    // Position in the scene's UpdateList, -1 when not in one
+    transient int updateIndex = -1;
 
     public void start() {
 
@@ -23,6 +25,11 @@ public abstract class Component {
 
     }
 
+    // Called when the owning game object leaves the scene
+    public void destroy() {
+
+    }
+
     public void imgui() {
         try {
             Field[] fields = this.getClass().getDeclaredFields();
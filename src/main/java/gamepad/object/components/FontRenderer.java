@@ -8,9 +8,4 @@ public class FontRenderer extends Component {
             System.out.println("Found Font Renderer");
         }
     }
-
-    @Override
-    public void update(float deltaTime) {
-
-    }
 }
@@ -4,23 +4,24 @@ import gamepad.Window;
 import gamepad.renderer.DebugDraw;
 import gamepad.utils.Settings;
 import org.joml.Vector2f;
+import org.joml.Vector2fc;
 import org.joml.Vector3f;
 
 public class GridLines extends Component {
 
     @Override
     public void update(float deltaTime) {
-        Vector2f cameraPos = Window.getScene().getCamera().position;
-        Vector2f projectionSize = Window.getScene().getCamera().getProjectionSize();
+        Vector2fc cameraPos = Window.getScene().getCamera().getPosition();
+        Vector2fc projectionSize = Window.getScene().getCamera().getProjectionSize();
 
-        int firstX = ((int) (cameraPos.x / Settings.GRID_WIDTH) - 1) * Settings.GRID_WIDTH;
-        int firstY = ((int) (cameraPos.y / Settings.GRID_HEIGHT) - 1) * Settings.GRID_HEIGHT;
+        int firstX = ((int) (cameraPos.x() / Settings.GRID_WIDTH) - 1) * Settings.GRID_WIDTH;
+        int firstY = ((int) (cameraPos.y() / Settings.GRID_HEIGHT) - 1) * Settings.GRID_HEIGHT;
 
-        int numVtLines = (int) (projectionSize.x / Settings.GRID_WIDTH) + 2;
-        int numHzLines = (int) (projectionSize.y / Settings.GRID_HEIGHT) + 2;
+        int numVtLines = (int) (projectionSize.x() / Settings.GRID_WIDTH) + 2;
+        int numHzLines = (int) (projectionSize.y() / Settings.GRID_HEIGHT) + 2;
 
-        int height = (int) projectionSize.y + Settings.GRID_HEIGHT * 2;
-        int width = (int) projectionSize.x + Settings.GRID_WIDTH * 2;
+        int height = (int) projectionSize.y() + Settings.GRID_HEIGHT * 2;
+        int width = (int) projectionSize.x() + Settings.GRID_WIDTH * 2;
 
         int maxLines = Math.max(numVtLines, numHzLines);
         Vector3f color = new Vector3f(0.2f, 0.2f, 0.2f);
@@ -22,10 +22,11 @@ public class MouseControls extends Component {
     @Override
     public void update(float deltaTime) {
         if(holdingObject != null) {
-            holdingObject.transform.position.x = MouseListener.getOrthoX() - 16;
-            holdingObject.transform.position.y = MouseListener.getOrthoY() - 16;
-            holdingObject.transform.position.x = (int) (holdingObject.transform.position.x / Settings.GRID_WIDTH) * Settings.GRID_WIDTH;
-            holdingObject.transform.position.y = (int) (holdingObject.transform.position.y / Settings.GRID_HEIGHT) * Settings.GRID_HEIGHT;
+            float x = MouseListener.getOrthoX() - 16;
+            float y = MouseListener.getOrthoY() - 16;
+            holdingObject.transform.setPosition(
+                    (int) (x / Settings.GRID_WIDTH) * Settings.GRID_WIDTH,
+                    (int) (y / Settings.GRID_HEIGHT) * Settings.GRID_HEIGHT);
 
             if(MouseListener.mouseButtonDown(GLFW.GLFW_MOUSE_BUTTON_LEFT)) {
                 this.place();
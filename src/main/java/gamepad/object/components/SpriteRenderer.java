@@ -1,19 +1,50 @@
 package gamepad.object.components;
 
+import gamepad.renderer.RenderBatch;
 import gamepad.renderer.Texture;
-import gamepad.utils.Transform;
+import gamepad.utils.ColumnStore;
+import gamepad.utils.Settings;
 import imgui.ImGui;
 import org.joml.Vector2f;
 import org.joml.Vector4f;
 
 public class SpriteRenderer extends Component {
 
-    private Vector4f color = new Vector4f(1, 1, 1, 1);
+    // Color columns, see ColumnStore
+    public static final int RED = 0, GREEN = 1, BLUE = 2, ALPHA = 3;
+    public static final int COLUMNS = 4;
+
+    // Shared by every sprite renderer created while Settings.COLUMN_STORAGE is on
+    private static final ColumnStore colorStore = new ColumnStore(COLUMNS);
+
+    // Column c of the color is colorData[colorBase + c * colorStride], serialized through ComponentAdapter
+    private transient float[] colorData;
+    private transient int colorBase, colorStride;
+    private transient int colorSlot = -1;
+
     private Sprite sprite = new Sprite();
 
-    private transient Transform lastTransform;
     private transient boolean shouldRedraw = true;
 
+    // Where the renderer currently stores this sprite
+    private transient RenderBatch batch = null;
+    private transient int batchIndex = -1;
+
+
+    public SpriteRenderer() {
+        if(Settings.COLUMN_STORAGE) {
+            this.colorSlot = colorStore.allocate();
+            this.colorData = colorStore.chunk(colorSlot);
+            this.colorBase = ColumnStore.offset(colorSlot);
+            this.colorStride = ColumnStore.CHUNK_SIZE;
+        } else {
+            this.colorData = new float[COLUMNS];
+            this.colorBase = 0;
+            this.colorStride = 1;
+        }
+
+        for(int c = 0; c < COLUMNS; c++) setColorColumn(c, 1.0f);
+    }
 
 //    public SpriteRenderer(Vector4f color) {
 //        this.color = color;
@@ -29,27 +60,39 @@ public class SpriteRenderer extends Component {
 
     @Override
     public void start() {
-        this.lastTransform = gameObject.transform.copy();
+        this.gameObject.transform.setChangeListener(this::markDirty);
     }
 
     @Override
-    public void update(float deltaTime) {
-        if(!this.lastTransform.equals(this.gameObject.transform)) {
-            this.gameObject.transform.copy(this.lastTransform);
-            this.shouldRedraw = true;
-        }
+    public void destroy() {
+        if(colorSlot < 0) return;
+
+        // Keeps working on a private copy, like Transform.release()
+        float[] values = new float[COLUMNS];
+        for(int c = 0; c < COLUMNS; c++) values[c] = getColorColumn(c);
+        colorStore.release(colorSlot);
+
+        this.colorSlot = -1;
+        this.colorData = values;
+        this.colorBase = 0;
+        this.colorStride = 1;
     }
 
     @Override
     public void imgui() {
-        float[] imColor = { color.x, color.y, color.z, color.w };
+        float[] imColor = { getColorColumn(RED), getColorColumn(GREEN), getColorColumn(BLUE), getColorColumn(ALPHA) };
         if(ImGui.colorPicker4("Color Picker: ", imColor)) {
-            this.color.set(imColor[0], imColor[1], imColor[2], imColor[3]);
-            this.shouldRedraw = true;
+            this.setColor(imColor[0], imColor[1], imColor[2], imColor[3]);
         }
     }
 
-    public Vector4f getColor() { return color; }
+    private float getColorColumn(int column) { return colorData[colorBase + column * colorStride]; }
+    private void setColorColumn(int column, float value) { colorData[colorBase + column * colorStride] = value; }
+
+    // Written into dest
+    public Vector4f getColor(Vector4f dest) {
+        return dest.set(getColorColumn(RED), getColorColumn(GREEN), getColorColumn(BLUE), getColorColumn(ALPHA));
+    }
     public Texture getTexture() {
         return sprite.getTexture();
     }
@@ -60,17 +103,42 @@ public class SpriteRenderer extends Component {
 
     public void setDrawn() { this.shouldRedraw = false; }
 
+    // Only the first change since the last draw reaches the batch
+    private void markDirty() {
+        if(this.shouldRedraw) return;
+        this.shouldRedraw = true;
+        if(batch != null) batch.spriteChanged(this);
+    }
+
+    public RenderBatch getBatch() { return this.batch; }
+    public int getBatchIndex() { return this.batchIndex; }
+
+    public void setBatch(RenderBatch batch, int batchIndex) {
+        this.batch = batch;
+        this.batchIndex = batchIndex;
+    }
+
     // TODO: Update so that we check to see if sprite was actually updated.
     public void setSprite(Sprite sprite) {
         this.sprite = sprite;
-        this.shouldRedraw = true;
+        this.markDirty();
     }
 
     public void setColor(Vector4f color) {
-        if(!this.color.equals(color)) {
-            this.color.set(color);
-            this.shouldRedraw = true;
-        }
+        setColor(color.x, color.y, color.z, color.w);
+    }
+
+    public void setColor(float r, float g, float b, float a) {
+        if(getColorColumn(RED) == r && getColorColumn(GREEN) == g
+                && getColorColumn(BLUE) == b && getColorColumn(ALPHA) == a) return;
+
+        setColorColumn(RED, r);
+        setColorColumn(GREEN, g);
+        setColorColumn(BLUE, b);
+        setColorColumn(ALPHA, a);
+        this.markDirty();
     }
 
+    public static ColumnStore getColorStore() { return colorStore; }
+
 }
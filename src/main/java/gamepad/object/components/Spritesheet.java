@@ -12,17 +12,31 @@ public class Spritesheet {
     private List<Sprite> sprites;
 
     public Spritesheet(Texture texture, int spriteWidth, int spriteHeight, int numSprites, int spacing) {
+        this(texture, 0, 0, texture.getWidth(), texture.getHeight(), spriteWidth, spriteHeight, numSprites, spacing);
+    }
+
+    // Sprite sheet packed into a texture atlas, the region sprite covers the whole sheet
+    public Spritesheet(Sprite region, int spriteWidth, int spriteHeight, int numSprites, int spacing) {
+        this(region.getTexture(),
+                Math.round(region.getTexCoords()[2].x * region.getTexture().getWidth()),
+                Math.round(region.getTexCoords()[2].y * region.getTexture().getHeight()),
+                (int) region.getWidth(), (int) region.getHeight(),
+                spriteWidth, spriteHeight, numSprites, spacing);
+    }
+
+    private Spritesheet(Texture texture, int originX, int originY, int sheetWidth, int sheetHeight,
+                        int spriteWidth, int spriteHeight, int numSprites, int spacing) {
         this.sprites = new ArrayList<>();
         this.texture = texture;
 
         int currentX = 0;
-        int currentY = texture.getHeight() - spriteHeight;
+        int currentY = sheetHeight - spriteHeight;
 
         for(int i = 0; i < numSprites; i++) {
-            float topY = (currentY + spriteHeight) / (float) texture.getHeight();
-            float rightX = (currentX + spriteWidth) / (float) texture.getWidth();
-            float leftX = currentX / (float) texture.getWidth();
-            float bottomY = currentY / (float) texture.getHeight();
+            float topY = (originY + currentY + spriteHeight) / (float) texture.getHeight();
+            float rightX = (originX + currentX + spriteWidth) / (float) texture.getWidth();
+            float leftX = (originX + currentX) / (float) texture.getWidth();
+            float bottomY = (originY + currentY) / (float) texture.getHeight();
 
             Vector2f[] texCoords = {
                     new Vector2f(rightX, topY),
@@ -39,7 +53,7 @@ public class Spritesheet {
             this.sprites.add(sprite);
 
             currentX += spriteWidth + spacing;
-            if(currentX >= texture.getWidth()) {
+            if(currentX >= sheetWidth) {
                 currentX = 0;
                 currentY -= spriteHeight + spacing;
             }
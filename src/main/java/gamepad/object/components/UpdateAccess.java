@@ -0,0 +1,21 @@
+package gamepad.object.components;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Declares what a component's update() touches so it can run in the parallel update phase, see UpdateList.
+// Reads and writes name data of the component's own game object, like Transform.class or a component class.
+// An annotated update must not touch other game objects, add or remove objects or components, or use GL,
+// Window, DebugDraw or any other static state. Components without this annotation run on the updating thread.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface UpdateAccess {
+
+    Class<?>[] reads() default {};
+
+    // Classes that write what they read run after each other, one object should hold at most one of them
+    Class<?>[] writes() default {};
+
+}
@@ -0,0 +1,249 @@
+package gamepad.object.components;
+
+import gamepad.jobs.JobSystem;
+import gamepad.jobs.Phase;
+import gamepad.jobs.RangeJob;
+import gamepad.utils.Settings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// The components of a scene that do something in update(), in the order they were added. Components
+// whose class does not override update() are never added, so a scene full of tiles costs nothing to update.
+// With Settings.PARALLEL_UPDATE components marked with @UpdateAccess are updated by the job system.
+public class UpdateList {
+
+    // Most components one job part updates
+    private static final int COMPONENTS_PER_PART = 128;
+
+    // Looked up once per class
+    private static final ClassValue<Boolean> overridesUpdate = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("update", float.class).getDeclaringClass() != Component.class;
+            } catch(NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    private static final ClassValue<UpdateAccess> accesses = new ClassValue<UpdateAccess>() {
+        @Override
+        protected UpdateAccess computeValue(Class<?> type) {
+            return type.getAnnotation(UpdateAccess.class);
+        }
+    };
+
+    private Component[] components = new Component[64];
+    private int count = 0;
+
+    // Stage of every annotated class seen so far. A class runs in a later stage than every class
+    // seen before it whose access conflicts with its own, classes in one stage run at the same time.
+    private HashMap<Class<?>, Integer> stages = new HashMap<>();
+    private ArrayList<Class<?>> stagedClasses = new ArrayList<>();
+
+    // Filled from the list at the start of every parallel update
+    private Component[][] stageComponents = new Component[0][];
+    private int[] stageSizes = new int[0];
+    // Each one depends on the one before
+    private StageJob[] stageJobs = new StageJob[0];
+    private Component[] serial = new Component[64];
+    private int serialCount = 0;
+
+    public static boolean overridesUpdate(Class<? extends Component> type) {
+        return overridesUpdate.get(type);
+    }
+
+    public void add(Component component) {
+        if(!overridesUpdate(component.getClass())) return;
+        assert component.updateIndex < 0 : "Error: (UpdateList) Component is already in an update list";
+
+        if(count == components.length) components = Arrays.copyOf(components, count * 2);
+        component.updateIndex = count;
+        components[count++] = component;
+    }
+
+    // Leaves a hole, the next update() closes it
+    public void remove(Component component) {
+        if(component.updateIndex < 0) return;
+
+        components[component.updateIndex] = null;
+        component.updateIndex = -1;
+    }
+
+    // Components added while updating run from the next call on. Holes are closed on the way, so the
+    // order stays the same and removing never shifts the array.
+    public void update(float deltaTime) {
+        if(Settings.PARALLEL_UPDATE) {
+            updateParallel(deltaTime);
+            return;
+        }
+
+        int end = count;
+        int write = 0;
+
+        for(int read = 0; read < end; read++) {
+            Component component = components[read];
+            if(component == null) continue;
+
+            move(read, write++);
+            component.update(deltaTime);
+        }
+
+        // Added while updating
+        for(int read = end; read < count; read++) {
+            if(components[read] != null) move(read, write++);
+        }
+
+        Arrays.fill(components, write, count, null);
+        count = write;
+    }
+
+    // Every stage in turn on the workers, then the components without declared access on this thread,
+    // each part in list order
+    private void updateParallel(float deltaTime) {
+        compact();
+        int stageCount = schedule();
+
+        if(stageJobs.length < stageCount) {
+            int first = stageJobs.length;
+            stageJobs = Arrays.copyOf(stageJobs, stageCount);
+            for(int s = first; s < stageCount; s++) {
+                stageJobs[s] = new StageJob(s);
+                if(s > 0) stageJobs[s].dependsOn(stageJobs[s - 1]);
+            }
+        }
+
+        for(int s = 0; s < stageCount; s++) {
+            StageJob job = stageJobs[s];
+            job.components = stageComponents[s];
+            job.deltaTime = deltaTime;
+            job.setRange(stageSizes[s], COMPONENTS_PER_PART);
+            JobSystem.schedule(Phase.UPDATE, job);
+        }
+        // A failed stage skips the ones after it, so the last one rethrows what any stage threw
+        if(stageCount > 0) JobSystem.wait(stageJobs[stageCount - 1]);
+
+        for(int i = 0; i < serialCount; i++) {
+            // Removed by a component updated before it
+            if(serial[i].updateIndex < 0) continue;
+            serial[i].update(deltaTime);
+        }
+    }
+
+    private void compact() {
+        int write = 0;
+        for(int read = 0; read < count; read++) {
+            if(components[read] != null) move(read, write++);
+        }
+
+        Arrays.fill(components, write, count, null);
+        count = write;
+    }
+
+    // Sorts the list into the stage arrays, returns the number of stages
+    private int schedule() {
+        Arrays.fill(stageSizes, 0);
+        Arrays.fill(serial, 0, serialCount, null);
+        serialCount = 0;
+        int stageCount = 0;
+
+        for(int i = 0; i < count; i++) {
+            Component component = components[i];
+            int stage = stage(component.getClass());
+
+            if(stage < 0) {
+                if(serialCount == serial.length) serial = Arrays.copyOf(serial, serialCount * 2);
+                serial[serialCount++] = component;
+                continue;
+            }
+
+            if(stage >= stageComponents.length) {
+                stageComponents = Arrays.copyOf(stageComponents, stage + 1);
+                stageSizes = Arrays.copyOf(stageSizes, stage + 1);
+            }
+            if(stageComponents[stage] == null) stageComponents[stage] = new Component[64];
+            if(stageSizes[stage] == stageComponents[stage].length) {
+                stageComponents[stage] = Arrays.copyOf(stageComponents[stage], stageSizes[stage] * 2);
+            }
+
+            stageComponents[stage][stageSizes[stage]++] = component;
+            stageCount = Math.max(stageCount, stage + 1);
+        }
+
+        return stageCount;
+    }
+
+    // -1 for classes that have to run on the updating thread
+    private int stage(Class<? extends Component> type) {
+        UpdateAccess access = accesses.get(type);
+        if(access == null) return -1;
+
+        Integer known = stages.get(type);
+        if(known != null) return known;
+
+        int stage = 0;
+        for(Class<?> other : stagedClasses) {
+            if(conflicts(access, accesses.get(other))) stage = Math.max(stage, stages.get(other) + 1);
+        }
+        stages.put(type, stage);
+        stagedClasses.add(type);
+        return stage;
+    }
+
+    private static boolean conflicts(UpdateAccess a, UpdateAccess b) {
+        return overlaps(a.writes(), b.reads()) || overlaps(a.writes(), b.writes()) || overlaps(b.writes(), a.reads());
+    }
+
+    private static boolean overlaps(Class<?>[] a, Class<?>[] b) {
+        for(Class<?> x : a) {
+            for(Class<?> y : b) {
+                if(x == y) return true;
+            }
+        }
+        return false;
+    }
+
+    // Updates the components of one stage, runs after the stage before it
+    private static class StageJob extends RangeJob {
+        Component[] components;
+        float deltaTime;
+
+        StageJob(int stage) {
+            super("Update stage " + stage);
+        }
+
+        @Override
+        protected void execute(int from, int to) {
+            for(int i = from; i < to; i++) components[i].update(deltaTime);
+        }
+    }
+
+    private void move(int from, int to) {
+        if(from == to) return;
+
+        Component component = components[from];
+        components[to] = component;
+        components[from] = null;
+        component.updateIndex = to;
+    }
+
+    public void clear() {
+        for(int i = 0; i < count; i++) {
+            if(components[i] != null) components[i].updateIndex = -1;
+        }
+        Arrays.fill(components, 0, count, null);
+        count = 0;
+
+        for(int s = 0; s < stageComponents.length; s++) {
+            if(stageComponents[s] != null) Arrays.fill(stageComponents[s], null);
+        }
+        Arrays.fill(serial, 0, serialCount, null);
+        serialCount = 0;
+    }
+
+    public int size() { return this.count; }
+
+}
@@ -0,0 +1,97 @@
+package gamepad.renderer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Batches of one zIndex and kind (static or dynamic), indexed so a sprite finds its batch in O(1)
+public class BatchPool {
+
+    private final List<RenderBatch> batches;
+
+    // Batches with room for more sprites and more textures, full ones are dropped lazily
+    private final ArrayDeque<RenderBatch> open;
+    private final Set<RenderBatch> openSet;
+
+    // A batch with room that already binds the texture (or texture array)
+    private final Map<Texture, RenderBatch> textureBatches;
+
+    public BatchPool() {
+        this.batches = new ArrayList<>();
+        this.open = new ArrayDeque<>();
+        this.openSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.textureBatches = new HashMap<>();
+    }
+
+    // Returns a batch that can take a sprite bound through the slot texture, or null if a new one is needed
+    public RenderBatch find(Texture texture) {
+        if(texture != null) {
+            RenderBatch batch = textureBatches.get(texture);
+            if(batch != null) {
+                if(batch.hasRoom()) return batch;
+                textureBatches.remove(texture);
+            }
+        }
+
+        while(!open.isEmpty()) {
+            RenderBatch batch = open.peekFirst();
+            if(batch.hasRoom() && batch.hasTextureRoom()) return batch;
+
+            open.pollFirst();
+            openSet.remove(batch);
+        }
+
+        return null;
+    }
+
+    public void add(RenderBatch batch) {
+        batches.add(batch);
+        open.addLast(batch);
+        openSet.add(batch);
+    }
+
+    // Records the batch a sprite bound through the slot texture was just added to
+    public void added(RenderBatch batch, Texture texture) {
+        if(texture != null) textureBatches.put(texture, batch);
+    }
+
+    // A sprite was removed from the batch, so it can take sprites again
+    public void freed(RenderBatch batch) {
+        if(batch.hasTextureRoom() && openSet.add(batch)) open.addLast(batch);
+
+        for(Texture texture : batch.getTextures()) {
+            RenderBatch current = textureBatches.get(texture);
+            if(current == null || !current.hasRoom()) textureBatches.put(texture, batch);
+        }
+    }
+
+    // A batch in this pool with enough free sprite and texture slots to take every sprite of source
+    public RenderBatch findMergeTarget(RenderBatch source) {
+        for(RenderBatch batch : batches) {
+            if(batch == source) continue;
+            if(batch.getMaxBatchSize() - batch.getNumSprites() < source.getNumSprites()) continue;
+
+            int newTextures = 0;
+            for(Texture texture : source.getTextures()) {
+                if(!batch.getTextures().contains(texture)) newTextures++;
+            }
+            if(batch.getTextures().size() + newTextures <= RenderBatch.MAX_TEXTURES) return batch;
+        }
+
+        return null;
+    }
+
+    public void remove(RenderBatch batch) {
+        batches.remove(batch);
+        if(openSet.remove(batch)) open.remove(batch);
+        textureBatches.values().removeIf(b -> b == batch);
+    }
+
+    public List<RenderBatch> getBatches() { return this.batches; }
+
+}
@@ -0,0 +1,76 @@
+package gamepad.renderer;
+
+import gamepad.Camera;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+// Uniform buffer holding the camera matrices for every shader with a "Camera" block, uploaded at most once per frame
+public class CameraBuffer {
+
+    public static final String BLOCK_NAME = "Camera";
+    public static final int BINDING = 0;
+
+    // std140 layout
+    // ==========
+    // mat4 uProjection     64 bytes
+    // mat4 uView           64 bytes
+    private static final int SIZE_BYTES = 2 * 16 * Float.BYTES;
+
+    private static ByteBuffer data = null;
+    private static int uboID;
+
+    // Skip the upload while the same camera has not changed
+    private static Camera lastCamera = null;
+    private static int lastVersion = -1;
+    private static boolean changed = false;
+
+    private static boolean started = false;
+
+    private static void start() {
+        uboID = Graphics.get().genBuffers();
+        Graphics.get().bindBuffer(GL31.GL_UNIFORM_BUFFER, uboID);
+        Graphics.get().bufferData(GL31.GL_UNIFORM_BUFFER, SIZE_BYTES, GL30.GL_DYNAMIC_DRAW);
+        Graphics.get().bindBufferBase(GL31.GL_UNIFORM_BUFFER, BINDING, uboID);
+    }
+
+    // Copies the camera matrices, called while game logic is paused
+    public static void prepare(Camera camera) {
+        if(data == null) data = MemoryUtil.memAlloc(SIZE_BYTES);
+
+        if(camera == lastCamera && camera.getVersion() == lastVersion) return;
+        lastCamera = camera;
+        lastVersion = camera.getVersion();
+
+        camera.getProjectionMatrix().get(0, data);
+        camera.getViewMatrix().get(16 * Float.BYTES, data);
+        changed = true;
+    }
+
+    public static void upload() {
+        if(!started) {
+            start();
+            started = true;
+        }
+
+        if(!changed) return;
+        changed = false;
+
+        Graphics.get().bindBuffer(GL31.GL_UNIFORM_BUFFER, uboID);
+        Graphics.get().bufferSubData(GL31.GL_UNIFORM_BUFFER, 0, data);
+    }
+
+    public static void destroy() {
+        if(started) {
+            Graphics.get().deleteBuffers(uboID);
+            started = false;
+        }
+
+        MemoryUtil.memFree(data);
+        data = null;
+        lastCamera = null;
+    }
+
+}
@@ -1,109 +1,129 @@
 package gamepad.renderer;
 
-import gamepad.Window;
 import gamepad.utils.AssetPool;
+import gamepad.utils.Profiler;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
 import org.lwjgl.opengl.GL30;
+import org.lwjgl.system.MemoryUtil;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 
 public class DebugDraw {
 
     private static int MAX_LINES = 500;
 
+    private static final int PROFILE_PREPARE = Profiler.register("DebugDraw.prepare");
+    private static final int PROFILE_DRAW = Profiler.register("DebugDraw.draw");
+
     private static ArrayList<Line2D> lines = new ArrayList<>();
     // 6 floats per vertex, 2 verticies per line
-    private static float[] vertexArray = new float[MAX_LINES * 6 * 2];
+    private static FloatBuffer vertexArray = MemoryUtil.memAllocFloat(MAX_LINES * 6 * 2);
 
-    private static Shader shader = AssetPool.getShader("assets/shaders/debugLine2D.glsl");
+    // Loaded in start() so only the GL thread compiles it
+    private static Shader shader;
 
     private static int vaoID;
     private static int vboID;
 
     private static boolean started = false;
 
+    // Vertices written into vertexArray by the last prepare()
+    private static int preparedVertices = 0;
+
     public static void start() {
+        shader = AssetPool.getShader("assets/shaders/debugLine2D.glsl");
+
         // Generate VAO
-        vaoID = GL30.glGenVertexArrays();
-        GL30.glBindVertexArray(vaoID);
+        vaoID = Graphics.get().genVertexArrays();
+        GLState.bindVertexArray(vaoID);
 
         // Create the vbo and buffer some memory
-        vboID = GL30.glGenBuffers();
-        GL30.glBindBuffer(GL30.GL_ARRAY_BUFFER, vboID);
-        GL30.glBufferData(GL30.GL_ARRAY_BUFFER, vertexArray.length * Float.BYTES, GL30.GL_DYNAMIC_DRAW);
+        vboID = Graphics.get().genBuffers();
+        GLState.bindArrayBuffer(vboID);
+        Graphics.get().bufferData(GL30.GL_ARRAY_BUFFER, (long) vertexArray.capacity() * Float.BYTES, GL30.GL_DYNAMIC_DRAW);
 
         // Enable the vertex array attributes
-        GL30.glVertexAttribPointer(0, 3, GL30.GL_FLOAT, false, 6 * Float.BYTES, 0);
-        GL30.glEnableVertexAttribArray(0);
+        Graphics.get().vertexAttribPointer(0, 3, GL30.GL_FLOAT, false, 6 * Float.BYTES, 0);
+        Graphics.get().enableVertexAttribArray(0);
 
-        GL30.glVertexAttribPointer(1, 3, GL30.GL_FLOAT, false, 6 * Float.BYTES, 3 * Float.BYTES);
-        GL30.glEnableVertexAttribArray(1);
+        Graphics.get().vertexAttribPointer(1, 3, GL30.GL_FLOAT, false, 6 * Float.BYTES, 3 * Float.BYTES);
+        Graphics.get().enableVertexAttribArray(1);
 
-        GL30.glLineWidth(2.0f);
+        Graphics.get().lineWidth(2.0f);
     }
 
-    public static void beginFrame() {
-        if(!started) {
-            start();
-            started = true;
-        }
-
-        // Remove dead lines
+    // Lines live for a number of simulation steps, so a frame without a step still draws the last step's
+    // lines and a frame with several steps does not draw them twice. Called before every step's update.
+    public static void beginStep() {
         for(int i = 0; i < lines.size(); i++) {
-            if(lines.get(i).beginFrame() < 0) {
+            if(lines.get(i).beginStep() <= 0) {
                 lines.remove(i);
                 i--;
             }
         }
     }
 
-    public static void draw() {
-        if(lines.size() <= 0) return;
-
+    // Copies the lines into the vertex buffer, called while game logic is paused
+    public static void prepare() {
+        Profiler.begin(PROFILE_PREPARE);
         int index = 0;
         for(Line2D line : lines) {
             for(int i = 0; i < 2; i++) {
                 Vector2f position = i == 0 ? line.getStart() : line.getEnd();
                 Vector3f color = line.getColor();
 
-                // Load Position Into Float Array
-                vertexArray[index] = position.x;
-                vertexArray[index + 1] = position.y;
-                vertexArray[index + 2] = -10.0f;
+                // Load Position Into Vertex Buffer
+                vertexArray.put(index, position.x);
+                vertexArray.put(index + 1, position.y);
+                vertexArray.put(index + 2, -10.0f);
 
-                // Load Color Into Float Array
-                vertexArray[index + 3] = color.x;
-                vertexArray[index + 4] = color.y;
-                vertexArray[index + 5] = color.z;
+                // Load Color Into Vertex Buffer
+                vertexArray.put(index + 3, color.x);
+                vertexArray.put(index + 4, color.y);
+                vertexArray.put(index + 5, color.z);
                 index += 6;
             }
         }
+        preparedVertices = lines.size() * 2;
+        Profiler.end(PROFILE_PREPARE);
+    }
+
+    public static void draw() {
+        if(!started) {
+            start();
+            started = true;
+        }
+
+        if(preparedVertices <= 0) return;
+        Profiler.begin(PROFILE_DRAW);
 
-        GL30.glBindBuffer(GL30.GL_ARRAY_BUFFER, vboID);
-        GL30.glBufferSubData(GL30.GL_ARRAY_BUFFER, 0, Arrays.copyOfRange(vertexArray, 0, lines.size() * 6 * 2));
+        GLState.bindArrayBuffer(vboID);
+        vertexArray.limit(preparedVertices * 6);
+        Graphics.get().bufferSubData(GL30.GL_ARRAY_BUFFER, 0, vertexArray);
+        vertexArray.clear();
 
         // Attach Shader
         shader.attach();
-        shader.uploadMat4f("uProjection", Window.getScene().getCamera().getProjectionMatrix());
-        shader.uploadMat4f("uView", Window.getScene().getCamera().getViewMatrix());
 
-        // Bind VAO
-        GL30.glBindVertexArray(vaoID);
-        GL30.glEnableVertexAttribArray(0);
-        GL30.glEnableVertexAttribArray(1);
+        // Bind VAO, its attributes stay enabled from start()
+        GLState.bindVertexArray(vaoID);
 
         // Draw the batch
-        GL30.glDrawArrays(GL30.GL_LINES, 0, lines.size() * 6 * 2);
+        Graphics.get().drawArrays(GL30.GL_LINES, 0, preparedVertices);
+        Profiler.end(PROFILE_DRAW);
+    }
 
-        // Disable Location
-        GL30.glDisableVertexAttribArray(0);
-        GL30.glDisableVertexAttribArray(1);
-        GL30.glBindVertexArray(0);
+    public static void destroy() {
+        if(started) {
+            GLState.deleteBuffer(vboID);
+            GLState.deleteVertexArray(vaoID);
+            started = false;
+        }
 
-        // Detach Shader
-        shader.detach();
+        MemoryUtil.memFree(vertexArray);
+        vertexArray = null;
     }
 
     // =======================================================
@@ -0,0 +1,342 @@
+package gamepad.renderer;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL33;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+// Forwards to the OpenGL context current on the calling thread
+public class GLBackend implements RenderBackend {
+
+    // ==============================================================
+    // General state
+    // ==============================================================
+
+    @Override
+    public void enable(int cap) {
+        GL11.glEnable(cap);
+    }
+
+    @Override
+    public void blendFunc(int sfactor, int dfactor) {
+        GL11.glBlendFunc(sfactor, dfactor);
+    }
+
+    @Override
+    public void clearColor(float red, float green, float blue, float alpha) {
+        GL11.glClearColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void clear(int mask) {
+        GL11.glClear(mask);
+    }
+
+    @Override
+    public void lineWidth(float width) {
+        GL11.glLineWidth(width);
+    }
+
+    @Override
+    public int getInteger(int name) {
+        return GL11.glGetInteger(name);
+    }
+
+    // ==============================================================
+    // Buffers
+    // ==============================================================
+
+    @Override
+    public int genVertexArrays() {
+        return GL30.glGenVertexArrays();
+    }
+
+    @Override
+    public void deleteVertexArrays(int array) {
+        GL30.glDeleteVertexArrays(array);
+    }
+
+    @Override
+    public void bindVertexArray(int array) {
+        GL30.glBindVertexArray(array);
+    }
+
+    @Override
+    public int genBuffers() {
+        return GL15.glGenBuffers();
+    }
+
+    @Override
+    public void deleteBuffers(int buffer) {
+        GL15.glDeleteBuffers(buffer);
+    }
+
+    @Override
+    public void bindBuffer(int target, int buffer) {
+        GL15.glBindBuffer(target, buffer);
+    }
+
+    @Override
+    public void bindBufferBase(int target, int index, int buffer) {
+        GL30.glBindBufferBase(target, index, buffer);
+    }
+
+    @Override
+    public void bufferData(int target, long size, int usage) {
+        GL15.glBufferData(target, size, usage);
+    }
+
+    @Override
+    public void bufferData(int target, float[] data, int usage) {
+        GL15.glBufferData(target, data, usage);
+    }
+
+    @Override
+    public void bufferData(int target, int[] data, int usage) {
+        GL15.glBufferData(target, data, usage);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, ByteBuffer data) {
+        GL15.glBufferSubData(target, offset, data);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, FloatBuffer data) {
+        GL15.glBufferSubData(target, offset, data);
+    }
+
+    // ==============================================================
+    // Vertex attributes
+    // ==============================================================
+
+    @Override
+    public void enableVertexAttribArray(int index) {
+        GL20.glEnableVertexAttribArray(index);
+    }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long pointer) {
+        GL20.glVertexAttribPointer(index, size, type, normalized, stride, pointer);
+    }
+
+    @Override
+    public void vertexAttribIPointer(int index, int size, int type, int stride, long pointer) {
+        GL30.glVertexAttribIPointer(index, size, type, stride, pointer);
+    }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) {
+        GL33.glVertexAttribDivisor(index, divisor);
+    }
+
+    // ==============================================================
+    // Shaders
+    // ==============================================================
+
+    @Override
+    public int createShader(int type) {
+        return GL20.glCreateShader(type);
+    }
+
+    @Override
+    public void shaderSource(int shader, CharSequence source) {
+        GL20.glShaderSource(shader, source);
+    }
+
+    @Override
+    public void compileShader(int shader) {
+        GL20.glCompileShader(shader);
+    }
+
+    @Override
+    public int getShaderi(int shader, int name) {
+        return GL20.glGetShaderi(shader, name);
+    }
+
+    @Override
+    public String getShaderInfoLog(int shader, int maxLength) {
+        return GL20.glGetShaderInfoLog(shader, maxLength);
+    }
+
+    @Override
+    public int createProgram() {
+        return GL20.glCreateProgram();
+    }
+
+    @Override
+    public void attachShader(int program, int shader) {
+        GL20.glAttachShader(program, shader);
+    }
+
+    @Override
+    public void linkProgram(int program) {
+        GL20.glLinkProgram(program);
+    }
+
+    @Override
+    public int getProgrami(int program, int name) {
+        return GL20.glGetProgrami(program, name);
+    }
+
+    @Override
+    public String getProgramInfoLog(int program, int maxLength) {
+        return GL20.glGetProgramInfoLog(program, maxLength);
+    }
+
+    @Override
+    public String getActiveUniform(int program, int index, IntBuffer size, IntBuffer type) {
+        return GL20.glGetActiveUniform(program, index, size, type);
+    }
+
+    @Override
+    public int getUniformLocation(int program, CharSequence name) {
+        return GL20.glGetUniformLocation(program, name);
+    }
+
+    @Override
+    public int getUniformBlockIndex(int program, CharSequence name) {
+        return GL31.glGetUniformBlockIndex(program, name);
+    }
+
+    @Override
+    public void uniformBlockBinding(int program, int blockIndex, int binding) {
+        GL31.glUniformBlockBinding(program, blockIndex, binding);
+    }
+
+    @Override
+    public void useProgram(int program) {
+        GL20.glUseProgram(program);
+    }
+
+    @Override
+    public void uniform1i(int location, int value) {
+        GL20.glUniform1i(location, value);
+    }
+
+    @Override
+    public void uniform1f(int location, float value) {
+        GL20.glUniform1f(location, value);
+    }
+
+    @Override
+    public void uniform4f(int location, float x, float y, float z, float w) {
+        GL20.glUniform4f(location, x, y, z, w);
+    }
+
+    @Override
+    public void uniform1iv(int location, int[] values) {
+        GL20.glUniform1iv(location, values);
+    }
+
+    @Override
+    public void uniformMatrix3fv(int location, boolean transpose, FloatBuffer value) {
+        GL20.glUniformMatrix3fv(location, transpose, value);
+    }
+
+    @Override
+    public void uniformMatrix4fv(int location, boolean transpose, FloatBuffer value) {
+        GL20.glUniformMatrix4fv(location, transpose, value);
+    }
+
+    // ==============================================================
+    // Textures
+    // ==============================================================
+
+    @Override
+    public int genTextures() {
+        return GL11.glGenTextures();
+    }
+
+    @Override
+    public void deleteTextures(int texture) {
+        GL11.glDeleteTextures(texture);
+    }
+
+    @Override
+    public void bindTexture(int target, int texture) {
+        GL11.glBindTexture(target, texture);
+    }
+
+    @Override
+    public void activeTexture(int unit) {
+        GL13.glActiveTexture(unit);
+    }
+
+    @Override
+    public void texParameteri(int target, int name, int param) {
+        GL11.glTexParameteri(target, name, param);
+    }
+
+    @Override
+    public void texImage2D(int target, int level, int internalFormat, int width, int height, int border, int format, int type, ByteBuffer pixels) {
+        GL11.glTexImage2D(target, level, internalFormat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public void texImage3D(int target, int level, int internalFormat, int width, int height, int depth, int border, int format, int type, ByteBuffer pixels) {
+        GL12.glTexImage3D(target, level, internalFormat, width, height, depth, border, format, type, pixels);
+    }
+
+    @Override
+    public void texSubImage3D(int target, int level, int xOffset, int yOffset, int zOffset, int width, int height, int depth, int format, int type, ByteBuffer pixels) {
+        GL12.glTexSubImage3D(target, level, xOffset, yOffset, zOffset, width, height, depth, format, type, pixels);
+    }
+
+    @Override
+    public void copyTexSubImage3D(int target, int level, int xOffset, int yOffset, int zOffset, int x, int y, int width, int height) {
+        GL12.glCopyTexSubImage3D(target, level, xOffset, yOffset, zOffset, x, y, width, height);
+    }
+
+    // ==============================================================
+    // Framebuffers
+    // ==============================================================
+
+    @Override
+    public int genFramebuffers() {
+        return GL30.glGenFramebuffers();
+    }
+
+    @Override
+    public void deleteFramebuffers(int framebuffer) {
+        GL30.glDeleteFramebuffers(framebuffer);
+    }
+
+    @Override
+    public void bindFramebuffer(int target, int framebuffer) {
+        GL30.glBindFramebuffer(target, framebuffer);
+    }
+
+    @Override
+    public void framebufferTextureLayer(int target, int attachment, int texture, int level, int layer) {
+        GL30.glFramebufferTextureLayer(target, attachment, texture, level, layer);
+    }
+
+    // ==============================================================
+    // Drawing
+    // ==============================================================
+
+    @Override
+    public void drawArrays(int mode, int first, int count) {
+        GL11.glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public void drawElements(int mode, int count, int type, long indices) {
+        GL11.glDrawElements(mode, count, type, indices);
+    }
+
+    @Override
+    public void drawElementsInstanced(int mode, int count, int type, long indices, int instances) {
+        GL31.glDrawElementsInstanced(mode, count, type, indices, instances);
+    }
+
+}
@@ -0,0 +1,104 @@
+package gamepad.renderer;
+
+import org.lwjgl.opengl.GL30;
+
+import java.util.Arrays;
+
+// Remembers what is bound so calls that would not change the GL state are skipped.
+// Everything that binds a program, VAO, array buffer or texture has to go through here,
+// otherwise the cache no longer matches the driver.
+public class GLState {
+
+    private static final int MAX_TEXTURE_UNITS = 16;
+
+    private static int program = -1;
+    private static int vertexArray = -1;
+    private static int arrayBuffer = -1;
+    private static int activeUnit = -1;
+    private static int[] textures = new int[MAX_TEXTURE_UNITS];
+    private static int[] textureTargets = new int[MAX_TEXTURE_UNITS];
+
+    static {
+        invalidate();
+    }
+
+    // Forget everything, the next bind of each kind is always issued
+    public static void invalidate() {
+        program = -1;
+        vertexArray = -1;
+        arrayBuffer = -1;
+        activeUnit = -1;
+        Arrays.fill(textures, -1);
+        Arrays.fill(textureTargets, -1);
+    }
+
+    public static void useProgram(int id) {
+        if(program == id) {
+            RenderStats.stateChangesElided++;
+            return;
+        }
+
+        Graphics.get().useProgram(id);
+        program = id;
+        RenderStats.stateChanges++;
+    }
+
+    public static void bindVertexArray(int id) {
+        if(vertexArray == id) {
+            RenderStats.stateChangesElided++;
+            return;
+        }
+
+        Graphics.get().bindVertexArray(id);
+        vertexArray = id;
+        RenderStats.stateChanges++;
+    }
+
+    public static void bindArrayBuffer(int id) {
+        if(arrayBuffer == id) {
+            RenderStats.stateChangesElided++;
+            return;
+        }
+
+        Graphics.get().bindBuffer(GL30.GL_ARRAY_BUFFER, id);
+        arrayBuffer = id;
+        RenderStats.stateChanges++;
+    }
+
+    public static void bindTexture(int unit, int target, int id) {
+        assert unit < MAX_TEXTURE_UNITS : "Error: (GLState) Texture unit " + unit + " is not tracked";
+
+        if(textures[unit] == id && textureTargets[unit] == target) {
+            RenderStats.stateChangesElided++;
+            return;
+        }
+
+        if(activeUnit != unit) {
+            Graphics.get().activeTexture(GL30.GL_TEXTURE0 + unit);
+            activeUnit = unit;
+        }
+        Graphics.get().bindTexture(target, id);
+        textures[unit] = id;
+        textureTargets[unit] = target;
+        RenderStats.stateChanges++;
+    }
+
+    // Deleting a bound object unbinds it, and its name may be handed out again
+    public static void deleteVertexArray(int id) {
+        Graphics.get().deleteVertexArrays(id);
+        if(vertexArray == id) vertexArray = 0;
+    }
+
+    public static void deleteBuffer(int id) {
+        Graphics.get().deleteBuffers(id);
+        if(arrayBuffer == id) arrayBuffer = 0;
+    }
+
+    public static void deleteTexture(int id) {
+        Graphics.get().deleteTextures(id);
+        for(int unit = 0; unit < MAX_TEXTURE_UNITS; unit++) {
+            if(textures[unit] == id) textures[unit] = 0;
+        }
+    }
+
+}
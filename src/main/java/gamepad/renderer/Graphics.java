@@ -0,0 +1,18 @@
+package gamepad.renderer;
+
+// Holds the backend all rendering goes through, GL unless something headless swaps it out
+public class Graphics {
+
+    private static RenderBackend backend = new GLBackend();
+
+    public static RenderBackend get() { return backend; }
+
+    // Only switch before anything was created through the old backend
+    public static void set(RenderBackend backend) {
+        Graphics.backend = backend;
+        GLState.invalidate();
+    }
+
+    public static boolean isHeadless() { return !(backend instanceof GLBackend); }
+
+}
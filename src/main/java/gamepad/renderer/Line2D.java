@@ -17,7 +17,7 @@ public class Line2D {
         this.lifeTime = lifeTime;
     }
 
-    public int beginFrame() {
+    public int beginStep() {
         this.lifeTime--;
         return this.lifeTime;
     }
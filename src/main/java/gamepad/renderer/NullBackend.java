@@ -0,0 +1,411 @@
+package gamepad.renderer;
+
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL31;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+// Does nothing but count, for running the renderer headless in benchmarks and on build agents.
+// Shaders always compile, have no uniforms, and every name handed out is new.
+public class NullBackend implements RenderBackend {
+
+    private int lastName = 0;
+
+    private long calls = 0;
+    private long drawCalls = 0;
+    private long instances = 0;
+    private long stateChanges = 0;
+    private long bytesUploaded = 0;
+
+    public void reset() {
+        calls = 0;
+        drawCalls = 0;
+        instances = 0;
+        stateChanges = 0;
+        bytesUploaded = 0;
+    }
+
+    public long getCalls() { return this.calls; }
+    public long getDrawCalls() { return this.drawCalls; }
+    public long getInstances() { return this.instances; }
+    public long getStateChanges() { return this.stateChanges; }
+    public long getBytesUploaded() { return this.bytesUploaded; }
+
+    @Override
+    public String toString() {
+        return "calls: " + calls + ", draw calls: " + drawCalls + " (" + instances + " instances)"
+                + ", state changes: " + stateChanges + ", bytes uploaded: " + bytesUploaded;
+    }
+
+    private static int queryShader(int name) {
+        switch (name) {
+            case GL20.GL_COMPILE_STATUS:
+            case GL20.GL_LINK_STATUS:
+                return GL20.GL_TRUE;
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public void enable(int cap) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public void blendFunc(int sfactor, int dfactor) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public void clearColor(float red, float green, float blue, float alpha) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public void clear(int mask) {
+        calls++;
+    }
+
+    @Override
+    public void lineWidth(float width) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public int getInteger(int name) {
+        calls++;
+        // Large enough for any limit the renderer checks
+        return Integer.MAX_VALUE;
+    }
+
+    // ==============================================================
+    // Buffers
+    // ==============================================================
+
+    @Override
+    public int genVertexArrays() {
+        calls++;
+        return ++lastName;
+    }
+
+    @Override
+    public void deleteVertexArrays(int array) {
+        calls++;
+    }
+
+    @Override
+    public void bindVertexArray(int array) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public int genBuffers() {
+        calls++;
+        return ++lastName;
+    }
+
+    @Override
+    public void deleteBuffers(int buffer) {
+        calls++;
+    }
+
+    @Override
+    public void bindBuffer(int target, int buffer) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public void bindBufferBase(int target, int index, int buffer) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public void bufferData(int target, long size, int usage) {
+        calls++;
+        bytesUploaded += size;
+    }
+
+    @Override
+    public void bufferData(int target, float[] data, int usage) {
+        calls++;
+        bytesUploaded += (long) data.length * Float.BYTES;
+    }
+
+    @Override
+    public void bufferData(int target, int[] data, int usage) {
+        calls++;
+        bytesUploaded += (long) data.length * Integer.BYTES;
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, ByteBuffer data) {
+        calls++;
+        bytesUploaded += data.remaining();
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, FloatBuffer data) {
+        calls++;
+        bytesUploaded += (long) data.remaining() * Float.BYTES;
+    }
+
+    // ==============================================================
+    // Vertex attributes
+    // ==============================================================
+
+    @Override
+    public void enableVertexAttribArray(int index) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long pointer) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public void vertexAttribIPointer(int index, int size, int type, int stride, long pointer) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) {
+        calls++;
+        stateChanges++;
+    }
+
+    // ==============================================================
+    // Shaders
+    // ==============================================================
+
+    @Override
+    public int createShader(int type) {
+        calls++;
+        return ++lastName;
+    }
+
+    @Override
+    public void shaderSource(int shader, CharSequence source) {
+        calls++;
+    }
+
+    @Override
+    public void compileShader(int shader) {
+        calls++;
+    }
+
+    @Override
+    public int getShaderi(int shader, int name) {
+        calls++;
+        return queryShader(name);
+    }
+
+    @Override
+    public String getShaderInfoLog(int shader, int maxLength) {
+        calls++;
+        return "";
+    }
+
+    @Override
+    public int createProgram() {
+        calls++;
+        return ++lastName;
+    }
+
+    @Override
+    public void attachShader(int program, int shader) {
+        calls++;
+    }
+
+    @Override
+    public void linkProgram(int program) {
+        calls++;
+    }
+
+    @Override
+    public int getProgrami(int program, int name) {
+        calls++;
+        return queryShader(name);
+    }
+
+    @Override
+    public String getProgramInfoLog(int program, int maxLength) {
+        calls++;
+        return "";
+    }
+
+    @Override
+    public String getActiveUniform(int program, int index, IntBuffer size, IntBuffer type) {
+        calls++;
+        return "";
+    }
+
+    @Override
+    public int getUniformLocation(int program, CharSequence name) {
+        calls++;
+        return -1;
+    }
+
+    @Override
+    public int getUniformBlockIndex(int program, CharSequence name) {
+        calls++;
+        return GL31.GL_INVALID_INDEX;
+    }
+
+    @Override
+    public void uniformBlockBinding(int program, int blockIndex, int binding) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public void useProgram(int program) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public void uniform1i(int location, int value) {
+        calls++;
+    }
+
+    @Override
+    public void uniform1f(int location, float value) {
+        calls++;
+    }
+
+    @Override
+    public void uniform4f(int location, float x, float y, float z, float w) {
+        calls++;
+    }
+
+    @Override
+    public void uniform1iv(int location, int[] values) {
+        calls++;
+    }
+
+    @Override
+    public void uniformMatrix3fv(int location, boolean transpose, FloatBuffer value) {
+        calls++;
+    }
+
+    @Override
+    public void uniformMatrix4fv(int location, boolean transpose, FloatBuffer value) {
+        calls++;
+    }
+
+    // ==============================================================
+    // Textures
+    // ==============================================================
+
+    @Override
+    public int genTextures() {
+        calls++;
+        return ++lastName;
+    }
+
+    @Override
+    public void deleteTextures(int texture) {
+        calls++;
+    }
+
+    @Override
+    public void bindTexture(int target, int texture) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public void activeTexture(int unit) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public void texParameteri(int target, int name, int param) {
+        calls++;
+        stateChanges++;
+    }
+
+    @Override
+    public void texImage2D(int target, int level, int internalFormat, int width, int height, int border, int format, int type, ByteBuffer pixels) {
+        calls++;
+    }
+
+    @Override
+    public void texImage3D(int target, int level, int internalFormat, int width, int height, int depth, int border, int format, int type, ByteBuffer pixels) {
+        calls++;
+    }
+
+    @Override
+    public void texSubImage3D(int target, int level, int xOffset, int yOffset, int zOffset, int width, int height, int depth, int format, int type, ByteBuffer pixels) {
+        calls++;
+    }
+
+    @Override
+    public void copyTexSubImage3D(int target, int level, int xOffset, int yOffset, int zOffset, int x, int y, int width, int height) {
+        calls++;
+    }
+
+    // ==============================================================
+    // Framebuffers
+    // ==============================================================
+
+    @Override
+    public int genFramebuffers() {
+        calls++;
+        return ++lastName;
+    }
+
+    @Override
+    public void deleteFramebuffers(int framebuffer) {
+        calls++;
+    }
+
+    @Override
+    public void bindFramebuffer(int target, int framebuffer) {
+        calls++;
+    }
+
+    @Override
+    public void framebufferTextureLayer(int target, int attachment, int texture, int level, int layer) {
+        calls++;
+    }
+
+    // ==============================================================
+    // Drawing
+    // ==============================================================
+
+    @Override
+    public void drawArrays(int mode, int first, int count) {
+        calls++;
+        drawCalls++;
+    }
+
+    @Override
+    public void drawElements(int mode, int count, int type, long indices) {
+        calls++;
+        drawCalls++;
+    }
+
+    @Override
+    public void drawElementsInstanced(int mode, int count, int type, long indices, int instances) {
+        calls++;
+        drawCalls++;
+        this.instances += instances;
+    }
+
+}
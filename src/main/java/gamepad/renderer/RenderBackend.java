@@ -0,0 +1,84 @@
+package gamepad.renderer;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+// Every GL call of the renderer goes through this, so the render path can run without a context.
+// Constants are still the GL ones, e.g. GL30.GL_ARRAY_BUFFER.
+public interface RenderBackend {
+
+    // General state
+    void enable(int cap);
+    void blendFunc(int sfactor, int dfactor);
+    void clearColor(float red, float green, float blue, float alpha);
+    void clear(int mask);
+    void lineWidth(float width);
+    int getInteger(int name);
+
+    // Buffers
+    int genVertexArrays();
+    void deleteVertexArrays(int array);
+    void bindVertexArray(int array);
+    int genBuffers();
+    void deleteBuffers(int buffer);
+    void bindBuffer(int target, int buffer);
+    void bindBufferBase(int target, int index, int buffer);
+    void bufferData(int target, long size, int usage);
+    void bufferData(int target, float[] data, int usage);
+    void bufferData(int target, int[] data, int usage);
+    void bufferSubData(int target, long offset, ByteBuffer data);
+    void bufferSubData(int target, long offset, FloatBuffer data);
+
+    // Vertex attributes
+    void enableVertexAttribArray(int index);
+    void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long pointer);
+    void vertexAttribIPointer(int index, int size, int type, int stride, long pointer);
+    void vertexAttribDivisor(int index, int divisor);
+
+    // Shaders
+    int createShader(int type);
+    void shaderSource(int shader, CharSequence source);
+    void compileShader(int shader);
+    int getShaderi(int shader, int name);
+    String getShaderInfoLog(int shader, int maxLength);
+    int createProgram();
+    void attachShader(int program, int shader);
+    void linkProgram(int program);
+    int getProgrami(int program, int name);
+    String getProgramInfoLog(int program, int maxLength);
+    String getActiveUniform(int program, int index, IntBuffer size, IntBuffer type);
+    int getUniformLocation(int program, CharSequence name);
+    int getUniformBlockIndex(int program, CharSequence name);
+    void uniformBlockBinding(int program, int blockIndex, int binding);
+    void useProgram(int program);
+    void uniform1i(int location, int value);
+    void uniform1f(int location, float value);
+    void uniform4f(int location, float x, float y, float z, float w);
+    void uniform1iv(int location, int[] values);
+    void uniformMatrix3fv(int location, boolean transpose, FloatBuffer value);
+    void uniformMatrix4fv(int location, boolean transpose, FloatBuffer value);
+
+    // Textures
+    int genTextures();
+    void deleteTextures(int texture);
+    void bindTexture(int target, int texture);
+    void activeTexture(int unit);
+    void texParameteri(int target, int name, int param);
+    void texImage2D(int target, int level, int internalFormat, int width, int height, int border, int format, int type, ByteBuffer pixels);
+    void texImage3D(int target, int level, int internalFormat, int width, int height, int depth, int border, int format, int type, ByteBuffer pixels);
+    void texSubImage3D(int target, int level, int xOffset, int yOffset, int zOffset, int width, int height, int depth, int format, int type, ByteBuffer pixels);
+    void copyTexSubImage3D(int target, int level, int xOffset, int yOffset, int zOffset, int x, int y, int width, int height);
+
+    // Framebuffers
+    int genFramebuffers();
+    void deleteFramebuffers(int framebuffer);
+    void bindFramebuffer(int target, int framebuffer);
+    void framebufferTextureLayer(int target, int attachment, int texture, int level, int layer);
+
+    // Drawing
+    void drawArrays(int mode, int first, int count);
+    void drawElements(int mode, int count, int type, long indices);
+    void drawElementsInstanced(int mode, int count, int type, long indices, int instances);
+
+}
@@ -1,53 +1,98 @@
 package gamepad.renderer;
 
-import gamepad.Window;
 import gamepad.object.components.SpriteRenderer;
 import gamepad.utils.AssetPool;
+import gamepad.utils.Profiler;
+import gamepad.utils.Settings;
+import gamepad.utils.Transform;
 import org.joml.Vector2f;
 import org.joml.Vector4f;
 import org.lwjgl.opengl.GL30;
+import org.lwjgl.system.MemoryUtil;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
 public class RenderBatch implements Comparable<RenderBatch> {
 
-    // Vertex
-    // ==========
-    // Pos              Color                           text coords     tex id
-    // float, float,    float, float, float, float      float, float    float
-    private final int POS_SIZE = 2;
-    private final int COLOR_SIZE = 4;
-    private final int TEX_COORDS_SIZE = 2;
-    private final int TEX_ID_SIZE = 1;
-
-    private final int POS_OFFSET = 0;
-    private final int COLOR_OFFSET = POS_OFFSET + POS_SIZE * Float.BYTES;
-    private final int TEX_COORDS_OFFSET = COLOR_OFFSET + COLOR_SIZE * Float.BYTES;
-    private final int TEX_ID_OFFSET = TEX_COORDS_OFFSET + TEX_COORDS_SIZE * Float.BYTES;
-    private final int VERTEX_SIZE = 9;
-    private final int VERTEX_SIZE_BYTES = VERTEX_SIZE * Float.BYTES;
-
     private SpriteRenderer[] sprites;
     private int numSprites;
     private boolean hasRoom;
-    private float[] vertices;
+    private ByteBuffer vertices;
     private int[] texSlots = {0, 1, 2, 3, 4, 5, 6, 7};
 
+    private static final int PROFILE_GENERATE = Profiler.register("RenderBatch.generate");
+    private static final int PROFILE_UPLOAD = Profiler.register("RenderBatch.upload");
+    private static final int PROFILE_RENDER = Profiler.register("RenderBatch.render");
+
+    // Texture array layers are packed above the sampler slot in the texture id
+    public static final int TEXTURE_LAYER_STRIDE = 16;
+    // Sampler slots available to a batch, uTextures has 8 entries and texture id 0 means untextured
+    public static final int MAX_TEXTURES = 7;
+    // Slots of a dynamic batch checked for demotion each frame
+    private static final int DEMOTE_CHECKS_PER_FRAME = 16;
+
+    // Sprite slots whose vertices changed since the last upload
+    private boolean[] dirtySlots;
+    private int dirtyMin, dirtyMax, dirtyCount;
+
+    // Sprites of a dynamic batch that changed since the last prepare, may hold sprites that left the batch
+    private ArrayList<SpriteRenderer> changed;
+    // Frame each sprite of a dynamic batch last changed, checked a few slots per frame
+    private int[] lastChange;
+    private int frame, demoteCursor;
+
+    // Sprites that moved during the last simulation step, regenerated every frame while they interpolate
+    private ArrayList<SpriteRenderer> interpolating, interpolatingNext;
+    private float alpha = 1.0f;
+
+    // Scratch for loadVertexProperties, a batch is only generated by one thread at a time
+    private final Vector2f spritePosition = new Vector2f();
+    private final Vector4f spriteColor = new Vector4f();
+
+    // Sprite slots found inside the camera this frame
+    private int visibleMin, visibleMax;
+    private int instanceBase;
+
     private List<Texture> textures;
-    private int vaoID, vboID;
+    private int vaoID, vboID, eboID, quadVboID;
     private int maxBatchSize;
     private Shader shader;
+    private VertexFormat format;
+    private boolean useTextureArrays;
     private int zIndex;
-
-    public RenderBatch(int maxBatchSize, int zIndex) {
-        this.shader = AssetPool.getShader("assets/shaders/default.glsl");
+    private boolean isStatic;
+    private Renderer renderer;
+
+    public RenderBatch(Renderer renderer, int maxBatchSize, int zIndex, boolean isStatic, VertexFormat format,
+                       boolean useTextureArrays) {
+        this.renderer = renderer;
+        this.isStatic = isStatic;
+        this.format = format;
+        this.useTextureArrays = useTextureArrays;
+        this.shader = useTextureArrays
+                ? AssetPool.getShader(format.getShaderPath(), "TEXTURE_ARRAYS")
+                : AssetPool.getShader(format.getShaderPath());
         this.sprites = new SpriteRenderer[maxBatchSize];
         this.maxBatchSize = maxBatchSize;
         this.zIndex = zIndex;
 
-        // 4 vertices quads
-        vertices = new float[maxBatchSize * 4 * VERTEX_SIZE]; // 4 = vertices per quad
+        // Off-heap so uploads hand the driver a pointer instead of copying an array
+        vertices = MemoryUtil.memAlloc(maxBatchSize * format.getSpriteSizeBytes());
+
+        this.dirtySlots = new boolean[maxBatchSize];
+        this.dirtyMin = Integer.MAX_VALUE;
+        this.dirtyMax = -1;
+        this.dirtyCount = 0;
+        this.changed = isStatic ? null : new ArrayList<>();
+        this.lastChange = isStatic ? null : new int[maxBatchSize];
+        this.frame = 0;
+        this.demoteCursor = 0;
+        this.interpolating = isStatic ? null : new ArrayList<>();
+        this.interpolatingNext = isStatic ? null : new ArrayList<>();
+        this.resetVisibility();
+        this.instanceBase = 0;
 
         this.numSprites = 0;
         this.hasRoom = true;
@@ -56,32 +101,34 @@ public class RenderBatch implements Comparable<RenderBatch> {
 
     public void start() {
         // Generate and bind a Vertex Array Object
-        vaoID = GL30.glGenVertexArrays();
-        GL30.glBindVertexArray(vaoID);
+        vaoID = Graphics.get().genVertexArrays();
+        GLState.bindVertexArray(vaoID);
+
+        if(format.isInstanced()) {
+            // Static unit quad shared by every instance
+            quadVboID = Graphics.get().genBuffers();
+            GLState.bindArrayBuffer(quadVboID);
+            Graphics.get().bufferData(GL30.GL_ARRAY_BUFFER, VertexFormat.UNIT_QUAD, GL30.GL_STATIC_DRAW);
+            Graphics.get().vertexAttribPointer(0, 2, GL30.GL_FLOAT, false, 2 * Float.BYTES, 0);
+            Graphics.get().enableVertexAttribArray(0);
+        }
 
-        // Allocate space for vertices
-        vboID = GL30.glGenBuffers();
-        GL30.glBindBuffer(GL30.GL_ARRAY_BUFFER, vboID);
-        GL30.glBufferData(GL30.GL_ARRAY_BUFFER, vertices.length * Float.BYTES, GL30.GL_DYNAMIC_DRAW);
+        // Allocate space for vertices (or per sprite instances)
+        vboID = Graphics.get().genBuffers();
+        GLState.bindArrayBuffer(vboID);
+        Graphics.get().bufferData(GL30.GL_ARRAY_BUFFER, vertices.capacity(), isStatic ? GL30.GL_STATIC_DRAW : GL30.GL_DYNAMIC_DRAW);
 
         // Create and upload indices buffer
-        int eboID = GL30.glGenBuffers();
-        int[] indices = generateIndices();
-        GL30.glBindBuffer(GL30.GL_ELEMENT_ARRAY_BUFFER, eboID);
-        GL30.glBufferData(GL30.GL_ELEMENT_ARRAY_BUFFER, indices, GL30.GL_STATIC_DRAW);
+        eboID = Graphics.get().genBuffers();
+        int[] indices = generateIndices(format.isInstanced() ? 1 : maxBatchSize);
+        Graphics.get().bindBuffer(GL30.GL_ELEMENT_ARRAY_BUFFER, eboID);
+        Graphics.get().bufferData(GL30.GL_ELEMENT_ARRAY_BUFFER, indices, GL30.GL_STATIC_DRAW);
 
         // Enable the buffer attribute pointers
-        GL30.glVertexAttribPointer(0, POS_SIZE, GL30.GL_FLOAT, false, VERTEX_SIZE_BYTES, POS_OFFSET);
-        GL30.glEnableVertexAttribArray(0);
+        format.setupAttributes();
 
-        GL30.glVertexAttribPointer(1, COLOR_SIZE, GL30.GL_FLOAT, false, VERTEX_SIZE_BYTES, COLOR_OFFSET);
-        GL30.glEnableVertexAttribArray(1);
-
-        GL30.glVertexAttribPointer(2, TEX_COORDS_SIZE, GL30.GL_FLOAT, false, VERTEX_SIZE_BYTES, TEX_COORDS_OFFSET);
-        GL30.glEnableVertexAttribArray(2);
-
-        GL30.glVertexAttribPointer(3, TEX_ID_SIZE, GL30.GL_FLOAT, false, VERTEX_SIZE_BYTES, TEX_ID_OFFSET);
-        GL30.glEnableVertexAttribArray(3);
+        // Sampler units never change, so they are set once for the program
+        shader.uploadIntArray("uTextures", texSlots);
     }
 
     public void addSprite(SpriteRenderer spriteRenderer) {
@@ -89,125 +136,300 @@ public class RenderBatch implements Comparable<RenderBatch> {
         int index = this.numSprites;
         this.sprites[index] = spriteRenderer;
         this.numSprites++;
+        spriteRenderer.setBatch(this, index);
+        if(!isStatic) lastChange[index] = frame;
 
         if(spriteRenderer.getTexture() != null) {
-            if(!textures.contains(spriteRenderer.getTexture())) {
-                textures.add(spriteRenderer.getTexture());
+            Texture texture = slotTexture(spriteRenderer.getTexture());
+            if(!textures.contains(texture)) {
+                textures.add(texture);
             }
         }
 
         // Add properties to local vertices array
         this.loadVertexProperties(index);
+        spriteRenderer.setDrawn();
+        this.markDirty(index);
+        // Loaded with the last frame's alpha, draw it again with the next one
+        if(!isStatic && spriteRenderer.gameObject.transform.movedLastStep()) interpolating.add(spriteRenderer);
 
         if(numSprites >= this.maxBatchSize) {
             this.hasRoom = false;
         }
     }
 
-    public void render() {
-        boolean rebufferData = false;
+    // Swaps the last sprite into the removed slot so the used slots stay contiguous
+    public void removeSprite(int index) {
+        SpriteRenderer removed = sprites[index];
+        int last = numSprites - 1;
+
+        if(index != last) {
+            sprites[index] = sprites[last];
+            sprites[index].setBatch(this, index);
+            if(!isStatic) lastChange[index] = lastChange[last];
+
+            this.loadVertexProperties(index);
+            this.markDirty(index);
+        }
+
+        if(dirtySlots[last]) {
+            dirtySlots[last] = false;
+            dirtyCount--;
+        }
+
+        sprites[last] = null;
+        numSprites--;
+        hasRoom = true;
+        removed.setBatch(null, -1);
 
-        for(int i = 0; i < numSprites; i++) {
-            SpriteRenderer spriteRenderer = sprites[i];
-            if(spriteRenderer.shouldRedraw()) {
-                this.loadVertexProperties(i);
-                spriteRenderer.setDrawn();
-                rebufferData = true;
+        if(numSprites == 0) textures.clear();
+    }
+
+    // Called by a sprite the first time it changes after being drawn
+    public void spriteChanged(SpriteRenderer spriteRenderer) {
+        if(isStatic) {
+            // Static batches never look for changes, the sprite has to become dynamic first
+            renderer.migrate(spriteRenderer, false);
+        } else {
+            // Sprites may change on several threads during a parallel update
+            synchronized(changed) {
+                changed.add(spriteRenderer);
             }
         }
+    }
+
+    public boolean hasChanges() { return !isStatic && (!changed.isEmpty() || !interpolating.isEmpty()); }
+
+    // Regenerates the vertices of sprites that changed. Only touches this batch and its own sprites,
+    // so different batches can generate on different threads. Alpha is how far rendering is into
+    // the next simulation step, 1 draws the latest positions.
+    public void generate(float alpha) {
+        // Static batches only upload what adds and removals touched
+        if(isStatic) return;
+        Profiler.begin(PROFILE_GENERATE);
+        this.alpha = alpha;
 
-        if(rebufferData) {
-            GL30.glBindBuffer(GL30.GL_ARRAY_BUFFER, vboID);
-            GL30.glBufferSubData(GL30.GL_ARRAY_BUFFER, 0, vertices);
+        // Interpolating sprites first, they are marked drawn so the changed list skips them
+        for(int i = 0; i < interpolating.size(); i++) {
+            generateSprite(interpolating.get(i));
         }
+        interpolating.clear();
 
-        // Attach Shader
-        shader.attach();
-        shader.uploadMat4f("uProjection", Window.getScene().getCamera().getProjectionMatrix());
-        shader.uploadMat4f("uView", Window.getScene().getCamera().getViewMatrix());
+        for(int i = 0; i < changed.size(); i++) {
+            SpriteRenderer spriteRenderer = changed.get(i);
+            // Already redrawn after being re-added or while interpolating
+            if(!spriteRenderer.shouldRedraw()) continue;
+            generateSprite(spriteRenderer);
+        }
 
-        // Upload and setup texture stuff to GLSL
-        for(int i = 0; i < textures.size(); i++) {
-            GL30.glActiveTexture(GL30.GL_TEXTURE0 + i + 1);
-            textures.get(i).bind();
+        ArrayList<SpriteRenderer> swap = interpolating;
+        interpolating = interpolatingNext;
+        interpolatingNext = swap;
+        Profiler.end(PROFILE_GENERATE);
+    }
+
+    private void generateSprite(SpriteRenderer spriteRenderer) {
+        // Moved to another batch
+        if(spriteRenderer.getBatch() != this) return;
+
+        int index = spriteRenderer.getBatchIndex();
+        this.loadVertexProperties(index);
+        spriteRenderer.setDrawn();
+        this.markDirty(index);
+        lastChange[index] = frame;
+
+        // Drawn between two positions, so the next frame has to draw it again
+        if(alpha < 1.0f && spriteRenderer.gameObject.transform.movedLastStep()) {
+            interpolatingNext.add(spriteRenderer);
         }
+    }
 
-        shader.uploadIntArray("uTextures", texSlots);
+    // Runs after generate() on the thread that prepares the frame, shared renderer state is only touched here
+    public void commit() {
+        if(isStatic) return;
 
-        GL30.glBindVertexArray(vaoID);
-        GL30.glEnableVertexAttribArray(0);
-        GL30.glEnableVertexAttribArray(1);
+        for(int i = 0; i < changed.size(); i++) {
+            SpriteRenderer spriteRenderer = changed.get(i);
+            if(spriteRenderer.getBatch() == this) renderer.getSpatialGrid().update(spriteRenderer);
+        }
+        changed.clear();
 
-        GL30.glDrawElements(GL30.GL_TRIANGLES, this.numSprites * 6, GL30.GL_UNSIGNED_INT, 0);
+        demoteStillSprites();
+        frame++;
+    }
 
-        GL30.glDisableVertexAttribArray(0);
-        GL30.glDisableVertexAttribArray(1);
-        GL30.glBindVertexArray(0);
+    // Uploads what generate() and adds or removals changed, on the GL thread
+    public void upload() {
+        Profiler.begin(PROFILE_UPLOAD);
+        this.uploadDirtyRanges();
+        Profiler.end(PROFILE_UPLOAD);
+    }
+
+    // Looks at a fixed number of slots per frame, so the cost does not grow with the batch
+    private void demoteStillSprites() {
+        int checks = Math.min(numSprites, DEMOTE_CHECKS_PER_FRAME);
+        for(int n = 0; n < checks; n++) {
+            if(demoteCursor >= numSprites) demoteCursor = 0;
+
+            int i = demoteCursor++;
+            if(frame - lastChange[i] >= Settings.STATIC_DEMOTE_FRAMES) {
+                renderer.migrate(sprites[i], true);
+                // Queued once, applyMigrations drops it if it moves again
+                lastChange[i] = frame;
+            }
+        }
+    }
+
+    public void resetVisibility() {
+        visibleMin = Integer.MAX_VALUE;
+        visibleMax = -1;
+    }
+
+    public void markVisible(int index) {
+        if(index < visibleMin) visibleMin = index;
+        if(index > visibleMax) visibleMax = index;
+    }
+
+    // Draws every sprite, or only the visible slot range when culling is enabled
+    public void render(boolean culled) {
+        int first = culled ? visibleMin : 0;
+        int count = culled ? visibleMax - visibleMin + 1 : numSprites;
+        if(count <= 0) {
+            RenderStats.batchesCulled++;
+            RenderStats.spritesCulled += numSprites;
+            return;
+        }
+
+        RenderStats.spritesDrawn += count;
+        RenderStats.spritesCulled += numSprites - count;
+        Profiler.begin(PROFILE_RENDER);
+
+        // State is left bound after drawing, GLState skips what the next batch shares with this one
+        // Camera matrices come from the CameraBuffer uniform block
+        shader.attach();
 
         for(int i = 0; i < textures.size(); i++) {
-            GL30.glActiveTexture(GL30.GL_TEXTURE0 + i + 1);
-            textures.get(i).unbind();
+            textures.get(i).bind(i + 1);
         }
 
-        shader.detach();
+        GLState.bindVertexArray(vaoID);
+
+        if(format.isInstanced()) {
+            // Without base instance support the instance attributes are offset instead
+            if(instanceBase != first) {
+                GLState.bindArrayBuffer(vboID);
+                format.setupAttributes(first * format.getSpriteSizeBytes());
+                instanceBase = first;
+            }
+            Graphics.get().drawElementsInstanced(GL30.GL_TRIANGLES, 6, GL30.GL_UNSIGNED_INT, 0, count);
+        } else {
+            Graphics.get().drawElements(GL30.GL_TRIANGLES, count * 6, GL30.GL_UNSIGNED_INT, (long) first * 6 * Integer.BYTES);
+        }
+        Profiler.end(PROFILE_RENDER);
     }
 
     private void loadVertexProperties(int index) {
         SpriteRenderer sprite = this.sprites[index];
 
-        // Find offset within array (4 vertices per sprite)
-        int offset = index * 4 * VERTEX_SIZE;
-
-        Vector4f color = sprite.getColor();
-        Vector2f[] texCoords = sprite.getTexCoords();
+        // Find offset within buffer (4 vertices or one instance per sprite)
+        int offset = index * format.getSpriteSizeBytes();
 
         int texID = 0;
         if(sprite.getTexture() != null) {
+            Texture texture = slotTexture(sprite.getTexture());
             for(int i = 0; i < textures.size(); i++) {
-                if(textures.get(i) == sprite.getTexture()) {
+                if(textures.get(i) == texture) {
                     texID = i + 1;
                     break;
                 }
             }
+
+            if(useTextureArrays) texID += sprite.getTexture().getArrayLayer() * TEXTURE_LAYER_STRIDE;
         }
 
-        // Add vertices with the appropriate properties
-        float xAdd = 1.0f;
-        float yAdd = 1.0f;
-        for (int i=0; i < 4; i++) {
-            if (i == 1) {
-                yAdd = 0.0f;
-            } else if (i == 2) {
-                xAdd = 0.0f;
-            } else if (i == 3) {
-                yAdd = 1.0f;
-            }
+        Transform transform = sprite.gameObject.transform;
+        Vector2f position = isStatic
+                ? transform.getPosition(spritePosition)
+                : transform.getInterpolatedPosition(alpha, spritePosition);
+        format.putSprite(vertices, offset,
+                position.x, position.y, transform.getScaleX(), transform.getScaleY(),
+                sprite.getColor(spriteColor), sprite.getTexCoords(), texID);
+    }
 
-            // Load position
-            vertices[offset] = sprite.gameObject.transform.position.x + (xAdd * sprite.gameObject.transform.scale.x);
-            vertices[offset + 1] = sprite.gameObject.transform.position.y + (yAdd * sprite.gameObject.transform.scale.y);
+    private Texture slotTexture(Texture texture) {
+        return slotTexture(texture, useTextureArrays);
+    }
 
-            // Load color
-            vertices[offset + 2] = color.x;
-            vertices[offset + 3] = color.y;
-            vertices[offset + 4] = color.z;
-            vertices[offset + 5] = color.w;
+    // The texture that occupies a sampler slot for the given sprite texture
+    public static Texture slotTexture(Texture texture, boolean useTextureArrays) {
+        if(texture == null || !useTextureArrays) return texture;
 
-            // Load texture coordinates
-            vertices[offset + 6] = texCoords[i].x;
-            vertices[offset + 7] = texCoords[i].y;
+        assert texture.getTextureArray() != null
+                : "Error: (RenderBatch) Texture '" + texture.getFilepath() + "' is not part of a texture array";
+        return texture.getTextureArray();
+    }
 
-            // Load texture ids
-            vertices[offset + 8] = texID;
+    private void markDirty(int index) {
+        if(dirtySlots[index]) return;
 
-            offset += VERTEX_SIZE;
+        dirtySlots[index] = true;
+        dirtyCount++;
+        if(index < dirtyMin) dirtyMin = index;
+        if(index > dirtyMax) dirtyMax = index;
+    }
+
+    private void uploadDirtyRanges() {
+        if(dirtyCount == 0) return;
+
+        GLState.bindArrayBuffer(vboID);
+
+        if(dirtyCount >= numSprites * Settings.BATCH_FULL_UPLOAD_THRESHOLD) {
+            // Most of the batch changed, one call is cheaper than many small ones
+            uploadSlots(0, numSprites);
+            RenderStats.fullUploads++;
+        } else {
+            // Coalesce dirty slots into runs, bridging small clean gaps
+            int runStart = -1;
+            int runEnd = -1;
+            for(int i = dirtyMin; i <= dirtyMax; i++) {
+                if(!dirtySlots[i]) continue;
+
+                if(runStart != -1 && i - runEnd - 1 > Settings.BATCH_UPLOAD_MERGE_GAP) {
+                    uploadSlots(runStart, runEnd + 1);
+                    runStart = -1;
+                }
+
+                if(runStart == -1) runStart = i;
+                runEnd = i;
+            }
+            uploadSlots(runStart, runEnd + 1);
         }
+
+        RenderStats.bytesAvoided += vertices.capacity();
+
+        for(int i = dirtyMin; i <= dirtyMax; i++) dirtySlots[i] = false;
+        dirtyMin = Integer.MAX_VALUE;
+        dirtyMax = -1;
+        dirtyCount = 0;
     }
 
-    private int[] generateIndices() {
+    private void uploadSlots(int from, int to) {
+        int start = from * format.getSpriteSizeBytes();
+        int length = (to - from) * format.getSpriteSizeBytes();
+
+        vertices.limit(start + length).position(start);
+        Graphics.get().bufferSubData(GL30.GL_ARRAY_BUFFER, start, vertices);
+        vertices.clear();
+
+        RenderStats.bytesUploaded += length;
+        RenderStats.bytesAvoided -= length;
+        RenderStats.uploadCalls++;
+    }
+
+    private int[] generateIndices(int quads) {
         // 6 indices per quad (3 per triangle)
-        int[] elements = new int[6 * maxBatchSize];
-        for (int i=0; i < maxBatchSize; i++) {
+        int[] elements = new int[6 * quads];
+        for (int i=0; i < quads; i++) {
             loadElementIndices(elements, i);
         }
 
@@ -230,10 +452,27 @@ public class RenderBatch implements Comparable<RenderBatch> {
         elements[offsetArrayIndex + 5] = offset + 1;
     }
 
+    public void destroy() {
+        GLState.deleteVertexArray(vaoID);
+        GLState.deleteBuffer(vboID);
+        GLState.deleteBuffer(eboID);
+        if(format.isInstanced()) GLState.deleteBuffer(quadVboID);
+
+        MemoryUtil.memFree(vertices);
+        vertices = null;
+    }
+
     public boolean hasRoom() { return this.hasRoom; }
-    public boolean hasTextureRoom() { return this.textures.size() < 8; }
-    public boolean hasTexture(Texture tex) { return this.textures.contains(tex); }
+    public boolean hasTextureRoom() { return this.textures.size() < MAX_TEXTURES; }
+    public boolean hasTexture(Texture tex) { return this.textures.contains(slotTexture(tex)); }
+    // Textures bound by this batch, texture arrays when they are in use
+    public List<Texture> getTextures() { return this.textures; }
     public int getzIndex() { return this.zIndex; }
+    public boolean isStatic() { return this.isStatic; }
+    public VertexFormat getFormat() { return this.format; }
+    public int getNumSprites() { return this.numSprites; }
+    public int getMaxBatchSize() { return this.maxBatchSize; }
+    public SpriteRenderer getSprite(int index) { return this.sprites[index]; }
 
     @Override
     public int compareTo(RenderBatch o) {
@@ -0,0 +1,51 @@
+package gamepad.renderer;
+
+import imgui.ImGui;
+
+public class RenderStats {
+
+    // Vertex buffer uploads
+    public static int bytesUploaded = 0;
+    public static int bytesAvoided = 0;
+    public static int uploadCalls = 0;
+    public static int fullUploads = 0;
+
+    // Culling
+    public static int spritesDrawn = 0;
+    public static int spritesCulled = 0;
+    public static int batchesCulled = 0;
+
+    // Static / dynamic batches
+    public static int migrations = 0;
+    public static int batchesMerged = 0;
+
+    // GL state changes, issued or skipped by GLState
+    public static int stateChanges = 0;
+    public static int stateChangesElided = 0;
+
+    public static void beginFrame() {
+        bytesUploaded = 0;
+        bytesAvoided = 0;
+        uploadCalls = 0;
+        fullUploads = 0;
+        spritesDrawn = 0;
+        spritesCulled = 0;
+        batchesCulled = 0;
+        migrations = 0;
+        batchesMerged = 0;
+        stateChanges = 0;
+        stateChangesElided = 0;
+    }
+
+    public static void imgui() {
+        ImGui.text("Bytes uploaded: " + bytesUploaded);
+        ImGui.text("Bytes avoided: " + bytesAvoided);
+        ImGui.text("Upload calls: " + uploadCalls + " (" + fullUploads + " full)");
+        ImGui.text("Sprites drawn: " + spritesDrawn + ", culled: " + spritesCulled);
+        ImGui.text("Batches culled: " + batchesCulled);
+        ImGui.text("Static/dynamic migrations: " + migrations);
+        ImGui.text("Batches merged: " + batchesMerged);
+        ImGui.text("State changes: " + stateChanges + " (" + stateChangesElided + " elided)");
+    }
+
+}
@@ -1,49 +1,343 @@
 package gamepad.renderer;
 
+import gamepad.Camera;
+import gamepad.Window;
+import gamepad.jobs.JobSystem;
+import gamepad.jobs.Phase;
+import gamepad.jobs.RangeJob;
 import gamepad.object.GameObject;
 import gamepad.object.components.SpriteRenderer;
+import gamepad.utils.Profiler;
+import gamepad.utils.Settings;
+import imgui.ImGui;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 public class Renderer {
 
     private final int MAX_BATCH_SIZE = 1000;
+    private final int MAX_DYNAMIC_BATCH_SIZE = 250;
+
+    private static final int PROFILE_PREPARE = Profiler.register("Renderer.prepare");
+    private static final int PROFILE_RENDER = Profiler.register("Renderer.render");
+
+    // Batch pools per zIndex, kept in draw order
+    private static class Layer {
+        final BatchPool staticPool = new BatchPool();
+        final BatchPool dynamicPool = new BatchPool();
+    }
+    private TreeMap<Integer, Layer> layers;
+
+    // Every batch in draw order, rebuilt from the layers when a batch is created
     private ArrayList<RenderBatch> batches;
+    private boolean batchesChanged;
+
+    private VertexFormat vertexFormat;
+
+    private SpatialGrid spatialGrid;
+    private final Consumer<SpriteRenderer> markVisible = sprite -> sprite.getBatch().markVisible(sprite.getBatchIndex());
+
+    // Changed batches of the frame being prepared, generated by the job system's workers
+    private ArrayList<RenderBatch> generating;
+    private final GenerateJob generateJob = new GenerateJob();
+
+    // Sprites added or removed since the last prepare()
+    private ArrayList<SpriteRenderer> pendingAdds;
+    private ArrayList<SpriteRenderer> pendingRemoves;
+    private boolean culled;
+
+    // Sprites waiting to switch between static and dynamic batches
+    private ArrayList<SpriteRenderer> pendingDynamic;
+    private ArrayList<SpriteRenderer> pendingStatic;
 
     public Renderer() {
+        this(Settings.BATCH_VERTEX_FORMAT);
+    }
+
+    public Renderer(VertexFormat vertexFormat) {
+        this.layers = new TreeMap<>();
         this.batches = new ArrayList<>();
+        this.batchesChanged = false;
+        this.vertexFormat = vertexFormat;
+        this.spatialGrid = new SpatialGrid(Settings.CULLING_CELL_SIZE);
+        this.pendingDynamic = new ArrayList<>();
+        this.pendingStatic = new ArrayList<>();
+        this.generating = new ArrayList<>();
+        this.pendingAdds = new ArrayList<>();
+        this.pendingRemoves = new ArrayList<>();
+        this.culled = false;
     }
 
+    // Adds and removals are queued and applied in prepare(), so game logic never touches batches directly
     public void add(GameObject gameObject) {
         SpriteRenderer spriteRenderer = gameObject.getComponent(SpriteRenderer.class);
-        if(spriteRenderer != null) add(spriteRenderer);
+        if(spriteRenderer != null) pendingAdds.add(spriteRenderer);
+    }
+
+    public void remove(GameObject gameObject) {
+        SpriteRenderer spriteRenderer = gameObject.getComponent(SpriteRenderer.class);
+        if(spriteRenderer == null) return;
+
+        // Never reached a batch
+        if(pendingAdds.remove(spriteRenderer)) return;
+        pendingRemoves.add(spriteRenderer);
+    }
+
+    private void applyPending() {
+        for(int i = 0; i < pendingRemoves.size(); i++) remove(pendingRemoves.get(i));
+        for(int i = 0; i < pendingAdds.size(); i++) add(pendingAdds.get(i));
+
+        pendingRemoves.clear();
+        pendingAdds.clear();
     }
 
     private void add(SpriteRenderer spriteRenderer) {
-        boolean added = false;
-        for(RenderBatch batch : batches) {
-            if(batch.hasRoom() && batch.getzIndex() == spriteRenderer.gameObject.getzIndex()) {
-                Texture texture = spriteRenderer.getTexture();
-                if(texture == null || (batch.hasTexture(texture) || batch.hasTextureRoom())) {
-                    batch.addSprite(spriteRenderer);
-                    added = true;
-                    break;
-                }
+        // Everything starts out static, sprites that move are migrated on their first change
+        place(spriteRenderer, true);
+        spatialGrid.insert(spriteRenderer);
+    }
+
+    private void remove(SpriteRenderer spriteRenderer) {
+        if(spriteRenderer.getBatch() == null) return;
+
+        RenderBatch batch = spriteRenderer.getBatch();
+        batch.removeSprite(spriteRenderer.getBatchIndex());
+        spatialGrid.remove(spriteRenderer);
+        released(batch);
+    }
+
+    private void place(SpriteRenderer spriteRenderer, boolean isStatic) {
+        int zIndex = spriteRenderer.gameObject.getzIndex();
+        BatchPool pool = getPool(zIndex, isStatic);
+        Texture slotTexture = RenderBatch.slotTexture(spriteRenderer.getTexture(), Settings.USE_TEXTURE_ARRAYS);
+
+        RenderBatch batch = pool.find(slotTexture);
+        if(batch == null) {
+            batch = new RenderBatch(this, isStatic ? MAX_BATCH_SIZE : MAX_DYNAMIC_BATCH_SIZE,
+                    zIndex, isStatic, vertexFormat, Settings.USE_TEXTURE_ARRAYS);
+            batch.start();
+            pool.add(batch);
+            batchesChanged = true;
+        }
+
+        batch.addSprite(spriteRenderer);
+        pool.added(batch, slotTexture);
+    }
+
+    private BatchPool getPool(int zIndex, boolean isStatic) {
+        Layer layer = layers.get(zIndex);
+        if(layer == null) {
+            layer = new Layer();
+            layers.put(zIndex, layer);
+        }
+
+        return isStatic ? layer.staticPool : layer.dynamicPool;
+    }
+
+    private ArrayList<RenderBatch> getBatches() {
+        if(batchesChanged) {
+            batches.clear();
+            for(Layer layer : layers.values()) {
+                batches.addAll(layer.staticPool.getBatches());
+                batches.addAll(layer.dynamicPool.getBatches());
             }
+            batchesChanged = false;
+        }
+
+        return batches;
+    }
+
+    // Queues a sprite to move into a static or a dynamic batch, sprites may change on several threads
+    // during a parallel update
+    synchronized void migrate(SpriteRenderer spriteRenderer, boolean toStatic) {
+        if(toStatic) {
+            pendingStatic.add(spriteRenderer);
+        } else {
+            pendingDynamic.add(spriteRenderer);
+        }
+    }
+
+    private void applyMigrations() {
+        for(int i = 0; i < pendingDynamic.size(); i++) {
+            move(pendingDynamic.get(i), false);
+        }
+
+        for(int i = 0; i < pendingStatic.size(); i++) {
+            SpriteRenderer spriteRenderer = pendingStatic.get(i);
+            // Started moving again after it was queued
+            if(spriteRenderer.shouldRedraw()) continue;
+            move(spriteRenderer, true);
+        }
+
+        pendingDynamic.clear();
+        pendingStatic.clear();
+    }
+
+    private void move(SpriteRenderer spriteRenderer, boolean toStatic) {
+        RenderBatch batch = spriteRenderer.getBatch();
+        // Removed, or already moved by an earlier entry
+        if(batch == null || batch.isStatic() == toStatic) return;
+
+        batch.removeSprite(spriteRenderer.getBatchIndex());
+        released(batch);
+        place(spriteRenderer, toStatic);
+        // It moved while in a static batch, which never updates the grid
+        spatialGrid.update(spriteRenderer);
+        RenderStats.migrations++;
+    }
+
+    // A sprite left the batch, hand the room back to its pool and merge the batch away if it is mostly empty
+    private void released(RenderBatch batch) {
+        BatchPool pool = getPool(batch.getzIndex(), batch.isStatic());
+        pool.freed(batch);
+
+        if(batch.getNumSprites() >= batch.getMaxBatchSize() * Settings.BATCH_MERGE_THRESHOLD) return;
+
+        RenderBatch target = null;
+        if(batch.getNumSprites() > 0) {
+            target = pool.findMergeTarget(batch);
+            if(target == null) return;
+        }
+
+        // Take from the back so removal never has to swap
+        for(int i = batch.getNumSprites() - 1; i >= 0; i--) {
+            SpriteRenderer spriteRenderer = batch.getSprite(i);
+            batch.removeSprite(i);
+            target.addSprite(spriteRenderer);
+            pool.added(target, RenderBatch.slotTexture(spriteRenderer.getTexture(), Settings.USE_TEXTURE_ARRAYS));
+            // Changes waiting in the old batch's list are marked drawn by addSprite and never reach commit()
+            spatialGrid.update(spriteRenderer);
         }
 
-        if(!added) {
-            RenderBatch newBatch = new RenderBatch(MAX_BATCH_SIZE, spriteRenderer.gameObject.getzIndex());
-            newBatch.start();
-            batches.add(newBatch);
-            newBatch.addSprite(spriteRenderer);
-            Collections.sort(batches);
+        pool.remove(batch);
+        batch.destroy();
+        batchesChanged = true;
+        RenderStats.batchesMerged++;
+    }
+
+    // Builds everything the next render() draws from the current game state. Runs while game logic is
+    // paused, afterwards the batches are not changed again until the next prepare(). Alpha interpolates
+    // moving sprites into the next simulation step.
+    public void prepare(float alpha) {
+        Profiler.begin(PROFILE_PREPARE);
+        applyPending();
+        applyMigrations();
+        if(Settings.PARALLEL_VERTEX_GENERATION) {
+            generateParallel(alpha);
+        } else {
+            for(RenderBatch batch : getBatches()) batch.generate(alpha);
         }
+        for(RenderBatch batch : getBatches()) batch.commit();
+        // Sprites demoted while preparing move before the next frame's scan
+        applyMigrations();
+
+        culled = Settings.FRUSTUM_CULLING;
+        if(culled) cull(Window.getScene().getCamera());
+        Profiler.end(PROFILE_PREPARE);
     }
 
+    // GL submission of the last prepared frame, may run while game logic works on the next one
     public void render() {
-        for(RenderBatch batch : batches) batch.render();
+        Profiler.begin(PROFILE_RENDER);
+        for(RenderBatch batch : getBatches()) {
+            batch.upload();
+            batch.render(culled);
+        }
+        Profiler.end(PROFILE_RENDER);
+    }
+
+    // Fans vertex generation of the changed batches out over the workers, uploads stay on this thread
+    private void generateParallel(float alpha) {
+        generating.clear();
+        for(RenderBatch batch : getBatches()) {
+            if(batch.hasChanges()) generating.add(batch);
+        }
+
+        if(generating.size() == 1) {
+            generating.get(0).generate(alpha);
+        } else if(generating.size() > 1) {
+            generateJob.alpha = alpha;
+            generateJob.setRange(generating.size(), 1);
+            JobSystem.run(Phase.RENDER_PREP, generateJob);
+        }
+    }
+
+    // Generates the batches in generating, one batch per part
+    private class GenerateJob extends RangeJob {
+        float alpha;
+
+        GenerateJob() {
+            super("Generate vertices");
+        }
+
+        @Override
+        protected void execute(int from, int to) {
+            for(int i = from; i < to; i++) generating.get(i).generate(alpha);
+        }
+    }
+
+    private void cull(Camera camera) {
+        for(RenderBatch batch : getBatches()) batch.resetVisibility();
+
+        float minX = camera.getPosition().x();
+        float minY = camera.getPosition().y();
+        spatialGrid.query(minX, minY,
+                minX + camera.getProjectionSize().x(), minY + camera.getProjectionSize().y(),
+                markVisible);
+    }
+
+    public void setVertexFormat(VertexFormat vertexFormat) {
+        if(this.vertexFormat == vertexFormat) return;
+        this.vertexFormat = vertexFormat;
+
+        // Rebuild every batch in the new format
+        applyPending();
+        ArrayList<SpriteRenderer> sprites = new ArrayList<>();
+        for(RenderBatch batch : getBatches()) {
+            for(int i = 0; i < batch.getNumSprites(); i++) sprites.add(batch.getSprite(i));
+        }
+
+        destroy();
+        for(SpriteRenderer spriteRenderer : sprites) add(spriteRenderer);
+    }
+
+    public void imgui() {
+        ImGui.begin("Renderer");
+
+        for(VertexFormat format : VertexFormat.values()) {
+            if(ImGui.radioButton(format.name(), format == vertexFormat)) setVertexFormat(format);
+            ImGui.sameLine();
+        }
+        ImGui.newLine();
+        ImGui.text("Batches: " + getBatches().size());
+        if(ImGui.checkbox("Frustum culling", Settings.FRUSTUM_CULLING)) {
+            Settings.FRUSTUM_CULLING = !Settings.FRUSTUM_CULLING;
+        }
+        if(ImGui.checkbox("Parallel vertex generation", Settings.PARALLEL_VERTEX_GENERATION)) {
+            Settings.PARALLEL_VERTEX_GENERATION = !Settings.PARALLEL_VERTEX_GENERATION;
+        }
+        if(ImGui.checkbox("Pipelined rendering", Settings.PIPELINED_RENDERING)) {
+            Settings.PIPELINED_RENDERING = !Settings.PIPELINED_RENDERING;
+        }
+
+        RenderStats.imgui();
+        ImGui.end();
+    }
+
+    public VertexFormat getVertexFormat() { return this.vertexFormat; }
+    public SpatialGrid getSpatialGrid() { return this.spatialGrid; }
+
+    public void destroy() {
+        for(RenderBatch batch : getBatches()) batch.destroy();
+        layers.clear();
+        batches.clear();
+        spatialGrid.clear();
+        pendingDynamic.clear();
+        pendingStatic.clear();
+        pendingAdds.clear();
+        pendingRemoves.clear();
     }
 
 }
@@ -6,23 +6,30 @@ import org.joml.Matrix4f;
 import org.joml.Vector4f;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL20;
-import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.system.MemoryUtil;
 
 import java.io.IOException;
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 
 public class Shader {
 
+    // Shared by every shader, uniforms are only uploaded on the GL thread
+    private static final FloatBuffer matrixBuffer = MemoryUtil.memAllocFloat(16);
+
     private int shaderProgramID;
-    private boolean beingUsed = false;
+    private Map<String, Integer> uniformLocations = new HashMap<>();
 
     private String vertexSource;
     private String fragmentSource;
     private String filepath;
 
-    public Shader(String filepath) {
+    public Shader(String filepath, String... defines) {
         this.filepath = filepath;
 
         try {
@@ -55,12 +62,29 @@ public class Shader {
                 throw new IOException("Unexpected token '" + secondPattern + "'");
             }
 
+            vertexSource = addDefines(vertexSource, defines);
+            fragmentSource = addDefines(fragmentSource, defines);
+
         } catch (IOException e) {
             e.printStackTrace();
             assert false : "Error: Could not open file for shader: '" + filepath + "'";
         }
     }
 
+    private static String addDefines(String source, String[] defines) {
+        if(defines.length == 0) return source;
+
+        // Defines have to follow the #version directive
+        int versionIndex = source.indexOf("#version");
+        int eol = source.indexOf('\n', versionIndex);
+
+        StringBuilder builder = new StringBuilder(source.substring(0, eol + 1));
+        for(String define : defines) builder.append("#define ").append(define).append('\n');
+        builder.append(source.substring(eol + 1));
+
+        return builder.toString();
+    }
+
     public void compile() {
         // ==============================================================
         // Compile and link shaders
@@ -68,104 +92,130 @@ public class Shader {
         int vertexID, fragmentID;
 
         // Load and compile vertex shader
-        vertexID = GL20.glCreateShader(GL20.GL_VERTEX_SHADER);
+        vertexID = Graphics.get().createShader(GL20.GL_VERTEX_SHADER);
         // Pass the shader source into the GPU
-        GL20.glShaderSource(vertexID, vertexSource);
-        GL20.glCompileShader(vertexID);
+        Graphics.get().shaderSource(vertexID, vertexSource);
+        Graphics.get().compileShader(vertexID);
 
         // Check for errors in compilation
-        int success = GL20.glGetShaderi(vertexID, GL20.GL_COMPILE_STATUS);
+        int success = Graphics.get().getShaderi(vertexID, GL20.GL_COMPILE_STATUS);
         if(success == GL20.GL_FALSE) {
-            int length = GL20.glGetShaderi(vertexID, GL20.GL_INFO_LOG_LENGTH);
+            int length = Graphics.get().getShaderi(vertexID, GL20.GL_INFO_LOG_LENGTH);
             System.out.println("ERROR: '" + filepath + "'\n\tVertex shader compilation failed.");
-            System.out.println(GL20.glGetShaderInfoLog(vertexID, length));
+            System.out.println(Graphics.get().getShaderInfoLog(vertexID, length));
             assert false : "";
         }
 
         // Load and compile fragment shader
-        fragmentID = GL20.glCreateShader(GL20.GL_FRAGMENT_SHADER);
+        fragmentID = Graphics.get().createShader(GL20.GL_FRAGMENT_SHADER);
         // Pass the shader source into the GPU
-        GL20.glShaderSource(fragmentID, fragmentSource);
-        GL20.glCompileShader(fragmentID);
+        Graphics.get().shaderSource(fragmentID, fragmentSource);
+        Graphics.get().compileShader(fragmentID);
 
         // Check for errors in compilation
-        success = GL20.glGetShaderi(fragmentID, GL20.GL_COMPILE_STATUS);
+        success = Graphics.get().getShaderi(fragmentID, GL20.GL_COMPILE_STATUS);
         if(success == GL20.GL_FALSE) {
-            int length = GL20.glGetShaderi(fragmentID, GL20.GL_INFO_LOG_LENGTH);
+            int length = Graphics.get().getShaderi(fragmentID, GL20.GL_INFO_LOG_LENGTH);
             System.out.println("ERROR: '" + filepath + "'\n\tFragment shader compilation failed.");
-            System.out.println(GL20.glGetShaderInfoLog(fragmentID, length));
+            System.out.println(Graphics.get().getShaderInfoLog(fragmentID, length));
             assert false : "";
         }
 
         // Link shaders and check for errors
-        shaderProgramID = GL20.glCreateProgram();
-        GL20.glAttachShader(shaderProgramID, vertexID);
-        GL20.glAttachShader(shaderProgramID, fragmentID);
+        shaderProgramID = Graphics.get().createProgram();
+        Graphics.get().attachShader(shaderProgramID, vertexID);
+        Graphics.get().attachShader(shaderProgramID, fragmentID);
 
-        GL20.glLinkProgram(shaderProgramID);
-        success = GL20.glGetProgrami(shaderProgramID, GL20.GL_LINK_STATUS);
+        Graphics.get().linkProgram(shaderProgramID);
+        success = Graphics.get().getProgrami(shaderProgramID, GL20.GL_LINK_STATUS);
         if(success == GL20.GL_FALSE) {
-            int length = GL20.glGetProgrami(shaderProgramID, GL20.GL_INFO_LOG_LENGTH);
+            int length = Graphics.get().getProgrami(shaderProgramID, GL20.GL_INFO_LOG_LENGTH);
             System.out.println("ERROR: '" + filepath + "'\n\tLinking of shaders failed.");
-            System.out.println(GL20.glGetProgramInfoLog(shaderProgramID, length));
+            System.out.println(Graphics.get().getProgramInfoLog(shaderProgramID, length));
             assert false : "";
         }
+
+        // Find every uniform once, the upload methods only look them up by name
+        uniformLocations.clear();
+        int uniformCount = Graphics.get().getProgrami(shaderProgramID, GL20.GL_ACTIVE_UNIFORMS);
+        IntBuffer size = BufferUtils.createIntBuffer(1);
+        IntBuffer type = BufferUtils.createIntBuffer(1);
+        for(int i = 0; i < uniformCount; i++) {
+            String name = Graphics.get().getActiveUniform(shaderProgramID, i, size, type);
+            int location = Graphics.get().getUniformLocation(shaderProgramID, name);
+            // Members of uniform blocks have no location
+            if(location < 0) continue;
+
+            uniformLocations.put(name, location);
+            // Arrays are reported as "name[0]" but uploaded through their plain name
+            if(name.endsWith("[0]")) uniformLocations.put(name.substring(0, name.length() - 3), location);
+        }
+
+        // Shaders that use the shared camera block read it from the camera buffer's binding point
+        int cameraBlock = Graphics.get().getUniformBlockIndex(shaderProgramID, CameraBuffer.BLOCK_NAME);
+        if(cameraBlock != GL31.GL_INVALID_INDEX) {
+            Graphics.get().uniformBlockBinding(shaderProgramID, cameraBlock, CameraBuffer.BINDING);
+        }
+    }
+
+    // -1 for uniforms the compiler removed, which GL silently ignores
+    private int getUniformLocation(String varName) {
+        Integer location = uniformLocations.get(varName);
+        return location != null ? location : -1;
     }
 
     public void attach() {
-        if(!beingUsed)
-            GL30.glUseProgram(shaderProgramID);
-        beingUsed = true;
+        GLState.useProgram(shaderProgramID);
     }
 
     public void detach() {
-        GL30.glUseProgram(0);
-        beingUsed = false;
+        GLState.useProgram(0);
     }
 
     public void uploadMat4f(String varName, Matrix4f mat4) {
-        int varLocation = GL30.glGetUniformLocation(shaderProgramID, varName);
+        int varLocation = getUniformLocation(varName);
         this.attach();
-        FloatBuffer matBuffer = BufferUtils.createFloatBuffer(16);
-        mat4.get(matBuffer);
-        GL30.glUniformMatrix4fv(varLocation, false, matBuffer);
+        mat4.get(matrixBuffer);
+        Graphics.get().uniformMatrix4fv(varLocation, false, matrixBuffer);
     }
 
     public void uploadMat3f(String varName, Matrix3f mat3) {
-        int varLocation = GL30.glGetUniformLocation(shaderProgramID, varName);
+        int varLocation = getUniformLocation(varName);
         this.attach();
-        FloatBuffer matBuffer = BufferUtils.createFloatBuffer(9);
-        mat3.get(matBuffer);
-        GL30.glUniformMatrix3fv(varLocation, false, matBuffer);
+        mat3.get(matrixBuffer);
+        // Upload only the 9 floats of the 3x3 matrix
+        matrixBuffer.limit(9);
+        Graphics.get().uniformMatrix3fv(varLocation, false, matrixBuffer);
+        matrixBuffer.clear();
     }
 
     public void uploadVec4f(String varName, Vector4f vec4f) {
-        int varLocation = GL30.glGetUniformLocation(shaderProgramID, varName);
+        int varLocation = getUniformLocation(varName);
         this.attach();
-        GL30.glUniform4f(varLocation, vec4f.x, vec4f.y, vec4f.z, vec4f.w);
+        Graphics.get().uniform4f(varLocation, vec4f.x, vec4f.y, vec4f.z, vec4f.w);
     }
 
     public void uploadFloat(String varName, float value) {
-        int varLocation = GL30.glGetUniformLocation(shaderProgramID, varName);
+        int varLocation = getUniformLocation(varName);
         this.attach();
-        GL30.glUniform1f(varLocation, value);
+        Graphics.get().uniform1f(varLocation, value);
     }
 
     public void uploadInt(String varName, int value) {
-        int varLocation = GL30.glGetUniformLocation(shaderProgramID, varName);
+        int varLocation = getUniformLocation(varName);
         this.attach();
-        GL30.glUniform1i(varLocation, value);
+        Graphics.get().uniform1i(varLocation, value);
     }
 
     public void uploadTexture(String varName, int slot) {
-        int varLocation = GL30.glGetUniformLocation(shaderProgramID, varName);
+        int varLocation = getUniformLocation(varName);
         this.attach();
-        GL30.glUniform1i(varLocation, slot);
+        Graphics.get().uniform1i(varLocation, slot);
     }
 
     public void uploadIntArray(String varName, int[] array) {
-        int varLocation = GL30.glGetUniformLocation(shaderProgramID, varName);
+        int varLocation = getUniformLocation(varName);
         this.attach();
-        GL30.glUniform1iv(varLocation, array);
+        Graphics.get().uniform1iv(varLocation, array);
     }
 }
@@ -0,0 +1,116 @@
+package gamepad.renderer;
+
+import gamepad.object.components.SpriteRenderer;
+import gamepad.utils.Transform;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Uniform grid of sprite bounds used to find the sprites inside the camera
+public class SpatialGrid {
+
+    private final float cellSize;
+    private final Map<Long, ArrayList<SpriteRenderer>> cells;
+
+    // Cell range { minX, minY, maxX, maxY } each sprite is currently stored in
+    private final Map<SpriteRenderer, int[]> cellRanges;
+
+    public SpatialGrid(float cellSize) {
+        this.cellSize = cellSize;
+        this.cells = new HashMap<>();
+        this.cellRanges = new IdentityHashMap<>();
+    }
+
+    public void insert(SpriteRenderer sprite) {
+        int[] range = new int[4];
+        computeRange(sprite, range);
+        cellRanges.put(sprite, range);
+        addToCells(sprite, range);
+    }
+
+    public void update(SpriteRenderer sprite) {
+        int[] range = cellRanges.get(sprite);
+        if(range == null) {
+            insert(sprite);
+            return;
+        }
+
+        int minX = range[0], minY = range[1], maxX = range[2], maxY = range[3];
+        computeRange(sprite, range);
+        if(minX == range[0] && minY == range[1] && maxX == range[2] && maxY == range[3]) return;
+
+        // Moved into different cells
+        int[] oldRange = { minX, minY, maxX, maxY };
+        removeFromCells(sprite, oldRange);
+        addToCells(sprite, range);
+    }
+
+    public void remove(SpriteRenderer sprite) {
+        int[] range = cellRanges.remove(sprite);
+        if(range != null) removeFromCells(sprite, range);
+    }
+
+    public void clear() {
+        cells.clear();
+        cellRanges.clear();
+    }
+
+    // Visits every sprite stored in a cell overlapping the rectangle. A sprite spanning
+    // several cells may be visited more than once.
+    public void query(float minX, float minY, float maxX, float maxY, Consumer<SpriteRenderer> visitor) {
+        int minCellX = cell(minX), minCellY = cell(minY);
+        int maxCellX = cell(maxX), maxCellY = cell(maxY);
+
+        for(int x = minCellX; x <= maxCellX; x++) {
+            for(int y = minCellY; y <= maxCellY; y++) {
+                ArrayList<SpriteRenderer> sprites = cells.get(key(x, y));
+                if(sprites == null) continue;
+
+                for(int i = 0; i < sprites.size(); i++) visitor.accept(sprites.get(i));
+            }
+        }
+    }
+
+    private void computeRange(SpriteRenderer sprite, int[] range) {
+        Transform transform = sprite.gameObject.transform;
+        float x0 = transform.getX(), x1 = transform.getX() + transform.getScaleX();
+        float y0 = transform.getY(), y1 = transform.getY() + transform.getScaleY();
+
+        range[0] = cell(Math.min(x0, x1));
+        range[1] = cell(Math.min(y0, y1));
+        range[2] = cell(Math.max(x0, x1));
+        range[3] = cell(Math.max(y0, y1));
+    }
+
+    private void addToCells(SpriteRenderer sprite, int[] range) {
+        for(int x = range[0]; x <= range[2]; x++) {
+            for(int y = range[1]; y <= range[3]; y++) {
+                cells.computeIfAbsent(key(x, y), k -> new ArrayList<>()).add(sprite);
+            }
+        }
+    }
+
+    private void removeFromCells(SpriteRenderer sprite, int[] range) {
+        for(int x = range[0]; x <= range[2]; x++) {
+            for(int y = range[1]; y <= range[3]; y++) {
+                ArrayList<SpriteRenderer> sprites = cells.get(key(x, y));
+                if(sprites == null) continue;
+
+                sprites.remove(sprite);
+                if(sprites.isEmpty()) cells.remove(key(x, y));
+            }
+        }
+    }
+
+    private int cell(float value) {
+        return (int) Math.floor(value / cellSize);
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+}
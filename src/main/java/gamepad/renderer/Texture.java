@@ -9,25 +9,29 @@ import java.nio.IntBuffer;
 
 public class Texture {
 
-    private String filepath;
-    private int textureID;
-    private int width, height;
+    protected String filepath;
+    protected int textureID;
+    protected int width, height;
+
+    // Set when the texture is also uploaded as a layer of a texture array
+    private transient TextureArray textureArray = null;
+    private transient int arrayLayer = -1;
 
     public void init(String filepath) {
         this.filepath = filepath;
 
         // Generate Texture on GPU
-        this.textureID = GL30.glGenTextures();
-        GL30.glBindTexture(GL30.GL_TEXTURE_2D, textureID);
+        this.textureID = Graphics.get().genTextures();
+        GLState.bindTexture(0, GL30.GL_TEXTURE_2D, textureID);
 
         // Set the texture parameters
         // Repeat image in both directions
-        GL30.glTexParameteri(GL30.GL_TEXTURE_2D, GL30.GL_TEXTURE_WRAP_S, GL30.GL_REPEAT);
-        GL30.glTexParameteri(GL30.GL_TEXTURE_2D, GL30.GL_TEXTURE_WRAP_T, GL30.GL_REPEAT);
+        Graphics.get().texParameteri(GL30.GL_TEXTURE_2D, GL30.GL_TEXTURE_WRAP_S, GL30.GL_REPEAT);
+        Graphics.get().texParameteri(GL30.GL_TEXTURE_2D, GL30.GL_TEXTURE_WRAP_T, GL30.GL_REPEAT);
         // When stretching the image, pixelate.
-        GL30.glTexParameteri(GL30.GL_TEXTURE_2D, GL30.GL_TEXTURE_MIN_FILTER, GL30.GL_NEAREST);
+        Graphics.get().texParameteri(GL30.GL_TEXTURE_2D, GL30.GL_TEXTURE_MIN_FILTER, GL30.GL_NEAREST);
         // When shrinking an image, pixelate.
-        GL30.glTexParameteri(GL30.GL_TEXTURE_2D, GL30.GL_TEXTURE_MAG_FILTER, GL30.GL_NEAREST);
+        Graphics.get().texParameteri(GL30.GL_TEXTURE_2D, GL30.GL_TEXTURE_MAG_FILTER, GL30.GL_NEAREST);
 
         IntBuffer width = BufferUtils.createIntBuffer(1);
         IntBuffer height = BufferUtils.createIntBuffer(1);
@@ -42,10 +46,10 @@ public class Texture {
             this.height = height.get(0);
 
             if(channels.get(0) == 3) {
-                GL30.glTexImage2D(GL30.GL_TEXTURE_2D, 0, GL30.GL_RGB, width.get(0), height.get(0),
+                Graphics.get().texImage2D(GL30.GL_TEXTURE_2D, 0, GL30.GL_RGB, width.get(0), height.get(0),
                         0, GL30.GL_RGB, GL30.GL_UNSIGNED_BYTE, image);
             } else if(channels.get(0) == 4){
-                GL30.glTexImage2D(GL30.GL_TEXTURE_2D, 0, GL30.GL_RGBA, width.get(0), height.get(0),
+                Graphics.get().texImage2D(GL30.GL_TEXTURE_2D, 0, GL30.GL_RGBA, width.get(0), height.get(0),
                         0, GL30.GL_RGBA, GL30.GL_UNSIGNED_BYTE, image);
             } else {
                 assert false : "Error (Texture): Unknown number of channels '" + channels.get(0) + "'";
@@ -57,14 +61,16 @@ public class Texture {
         STBImage.stbi_image_free(image);
     }
 
-    public void bind() {
-        GL30.glBindTexture(GL30.GL_TEXTURE_2D, textureID);
+    public void bind(int unit) {
+        GLState.bindTexture(unit, getTarget(), textureID);
     }
 
-    public void unbind() {
-        GL30.glBindTexture(GL30.GL_TEXTURE_2D, 0);
+    public void unbind(int unit) {
+        GLState.bindTexture(unit, getTarget(), 0);
     }
 
+    public int getTarget() { return GL30.GL_TEXTURE_2D; }
+
     public int getTextureID() { return textureID; }
     public String getFilepath() { return filepath; }
 
@@ -73,4 +79,12 @@ public class Texture {
 
     public int getID() { return this.textureID; }
 
+    public TextureArray getTextureArray() { return this.textureArray; }
+    public int getArrayLayer() { return this.arrayLayer; }
+
+    void setArrayLayer(TextureArray textureArray, int arrayLayer) {
+        this.textureArray = textureArray;
+        this.arrayLayer = arrayLayer;
+    }
+
 }
@@ -0,0 +1,100 @@
+package gamepad.renderer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.stb.STBImage;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Same-sized textures stored as layers of one GL_TEXTURE_2D_ARRAY so a batch can address
+// them through a single sampler slot. Storage grows by doubling, existing layers are copied on the GPU.
+public class TextureArray extends Texture {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private List<Texture> layers;
+    private int capacity = 0;
+    private final int maxLayers;
+
+    public TextureArray(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.layers = new ArrayList<>();
+        this.filepath = "TextureArray(" + width + "x" + height + ")";
+        this.maxLayers = Graphics.get().getInteger(GL30.GL_MAX_ARRAY_TEXTURE_LAYERS);
+        this.textureID = createStorage(Math.min(INITIAL_CAPACITY, maxLayers));
+        this.capacity = Math.min(INITIAL_CAPACITY, maxLayers);
+    }
+
+    public void add(Texture texture) {
+        assert texture.getWidth() == width && texture.getHeight() == height
+                : "Error: (TextureArray) '" + texture.getFilepath() + "' does not match the array size " + width + "x" + height;
+        assert layers.size() < maxLayers : "Error: (TextureArray) Too many layers in " + filepath;
+
+        if(layers.size() == capacity) grow(Math.min(capacity * 2, maxLayers));
+
+        layers.add(texture);
+        texture.setArrayLayer(this, layers.size() - 1);
+        uploadLayer(texture, layers.size() - 1);
+    }
+
+    private int createStorage(int layerCount) {
+        int id = Graphics.get().genTextures();
+        GLState.bindTexture(0, GL30.GL_TEXTURE_2D_ARRAY, id);
+
+        Graphics.get().texParameteri(GL30.GL_TEXTURE_2D_ARRAY, GL30.GL_TEXTURE_WRAP_S, GL30.GL_REPEAT);
+        Graphics.get().texParameteri(GL30.GL_TEXTURE_2D_ARRAY, GL30.GL_TEXTURE_WRAP_T, GL30.GL_REPEAT);
+        Graphics.get().texParameteri(GL30.GL_TEXTURE_2D_ARRAY, GL30.GL_TEXTURE_MIN_FILTER, GL30.GL_NEAREST);
+        Graphics.get().texParameteri(GL30.GL_TEXTURE_2D_ARRAY, GL30.GL_TEXTURE_MAG_FILTER, GL30.GL_NEAREST);
+
+        Graphics.get().texImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, GL30.GL_RGBA8, width, height, layerCount,
+                0, GL30.GL_RGBA, GL30.GL_UNSIGNED_BYTE, (ByteBuffer) null);
+        return id;
+    }
+
+    // Copies every layer into new storage through a read framebuffer, no image is decoded again.
+    // glCopyImageSubData would need GL 4.3, the context is 4.0.
+    private void grow(int newCapacity) {
+        int newID = createStorage(newCapacity);
+
+        int framebuffer = Graphics.get().genFramebuffers();
+        Graphics.get().bindFramebuffer(GL30.GL_READ_FRAMEBUFFER, framebuffer);
+        for(int i = 0; i < layers.size(); i++) {
+            Graphics.get().framebufferTextureLayer(GL30.GL_READ_FRAMEBUFFER, GL30.GL_COLOR_ATTACHMENT0, textureID, 0, i);
+            Graphics.get().copyTexSubImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, 0, 0, i, 0, 0, width, height);
+        }
+        Graphics.get().bindFramebuffer(GL30.GL_READ_FRAMEBUFFER, 0);
+        Graphics.get().deleteFramebuffers(framebuffer);
+
+        GLState.deleteTexture(textureID);
+        textureID = newID;
+        capacity = newCapacity;
+    }
+
+    private void uploadLayer(Texture texture, int layer) {
+        IntBuffer width = BufferUtils.createIntBuffer(1);
+        IntBuffer height = BufferUtils.createIntBuffer(1);
+        IntBuffer channels = BufferUtils.createIntBuffer(1);
+
+        STBImage.stbi_set_flip_vertically_on_load(true);
+        ByteBuffer image = STBImage.stbi_load(texture.getFilepath(), width, height, channels, 4);
+
+        if(image != null) {
+            GLState.bindTexture(0, GL30.GL_TEXTURE_2D_ARRAY, textureID);
+            Graphics.get().texSubImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, 0, 0, layer, width.get(0), height.get(0), 1,
+                    GL30.GL_RGBA, GL30.GL_UNSIGNED_BYTE, image);
+            STBImage.stbi_image_free(image);
+        } else {
+            assert false : "Error: (TextureArray) Could not load image '" + texture.getFilepath() + "'";
+        }
+    }
+
+    @Override
+    public int getTarget() { return GL30.GL_TEXTURE_2D_ARRAY; }
+
+    public int getLayerCount() { return this.layers.size(); }
+
+}
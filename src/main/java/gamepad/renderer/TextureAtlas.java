@@ -0,0 +1,237 @@
+package gamepad.renderer;
+
+import com.google.gson.Gson;
+import gamepad.object.components.Sprite;
+import gamepad.utils.AssetPool;
+import gamepad.utils.AtlasPacker;
+import org.joml.Vector2f;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.stb.STBImageWrite;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Packs individual images into a few large textures. The packed pages and their layout are
+// cached on disk so later runs skip the packing as long as the source images are unchanged.
+public class TextureAtlas {
+
+    private static class Region {
+        int atlas, x, y, width, height;
+    }
+
+    private static class Layout {
+        int atlasCount;
+        Map<String, Region> regions = new HashMap<>();
+    }
+
+    private final List<String> images = new ArrayList<>();
+    private final List<Texture> textures = new ArrayList<>();
+    private final Map<String, Sprite> sprites = new HashMap<>();
+
+    public void add(String resourceName) {
+        String path = new File(resourceName).getAbsolutePath();
+        if(!images.contains(path)) images.add(path);
+    }
+
+    public void build(File cacheDirectory, int atlasSize, int padding) {
+        if(!cacheDirectory.exists()) cacheDirectory.mkdirs();
+
+        String key = cacheKey(atlasSize, padding);
+        File layoutFile = new File(cacheDirectory, "atlas_" + key + ".json");
+
+        Layout layout = readLayout(layoutFile, cacheDirectory, key);
+        if(layout == null) {
+            deleteStale(cacheDirectory, key);
+            layout = pack(cacheDirectory, key, atlasSize, padding);
+            writeLayout(layoutFile, layout);
+        }
+
+        textures.clear();
+        for(int i = 0; i < layout.atlasCount; i++) {
+            textures.add(AssetPool.getTexture(pageFile(cacheDirectory, key, i).getPath()));
+        }
+
+        sprites.clear();
+        for(Map.Entry<String, Region> entry : layout.regions.entrySet()) {
+            Region region = entry.getValue();
+            Texture texture = textures.get(region.atlas);
+
+            float leftX = region.x / (float) texture.getWidth();
+            float rightX = (region.x + region.width) / (float) texture.getWidth();
+            float bottomY = region.y / (float) texture.getHeight();
+            float topY = (region.y + region.height) / (float) texture.getHeight();
+
+            Sprite sprite = new Sprite();
+            sprite.setTexture(texture);
+            sprite.setTexCoords(new Vector2f[] {
+                    new Vector2f(rightX, topY),
+                    new Vector2f(rightX, bottomY),
+                    new Vector2f(leftX, bottomY),
+                    new Vector2f(leftX, topY),
+            });
+            sprite.setWidth(region.width);
+            sprite.setHeight(region.height);
+            sprites.put(entry.getKey(), sprite);
+        }
+    }
+
+    private Layout pack(File cacheDirectory, String key, int atlasSize, int padding) {
+        Layout layout = new Layout();
+
+        // Load every image, flipped like Texture does so texture coordinates line up
+        ByteBuffer[] pixels = new ByteBuffer[images.size()];
+        int[][] sizes = new int[images.size()][];
+        IntBuffer width = BufferUtils.createIntBuffer(1);
+        IntBuffer height = BufferUtils.createIntBuffer(1);
+        IntBuffer channels = BufferUtils.createIntBuffer(1);
+        STBImage.stbi_set_flip_vertically_on_load(true);
+
+        List<Integer> order = new ArrayList<>();
+        for(int i = 0; i < images.size(); i++) {
+            pixels[i] = STBImage.stbi_load(images.get(i), width, height, channels, 4);
+            if(pixels[i] == null) {
+                assert false : "Error: (TextureAtlas) Could not load image '" + images.get(i) + "'";
+                continue;
+            }
+
+            sizes[i] = new int[] { width.get(0), height.get(0) };
+            order.add(i);
+        }
+
+        // Tallest first packs noticeably tighter with a skyline
+        order.sort((a, b) -> Integer.compare(sizes[b][1], sizes[a][1]));
+
+        List<AtlasPacker> packers = new ArrayList<>();
+        int[] position = new int[2];
+        for(int i : order) {
+            int paddedWidth = sizes[i][0] + padding;
+            int paddedHeight = sizes[i][1] + padding;
+            if(paddedWidth > atlasSize || paddedHeight > atlasSize) {
+                assert false : "Error: (TextureAtlas) '" + images.get(i) + "' does not fit in a " + atlasSize + " atlas";
+                continue;
+            }
+
+            int atlas = 0;
+            while(atlas < packers.size() && !packers.get(atlas).pack(paddedWidth, paddedHeight, position)) atlas++;
+            if(atlas == packers.size()) {
+                AtlasPacker packer = new AtlasPacker(atlasSize, atlasSize);
+                packer.pack(paddedWidth, paddedHeight, position);
+                packers.add(packer);
+            }
+
+            Region region = new Region();
+            region.atlas = atlas;
+            region.x = position[0];
+            region.y = position[1];
+            region.width = sizes[i][0];
+            region.height = sizes[i][1];
+            layout.regions.put(images.get(i), region);
+        }
+        layout.atlasCount = packers.size();
+
+        // Copy the images into their pages and write the pages out
+        STBImageWrite.stbi_flip_vertically_on_write(true);
+        for(int atlas = 0; atlas < packers.size(); atlas++) {
+            ByteBuffer page = MemoryUtil.memCalloc(atlasSize * atlasSize * 4);
+
+            for(int i : order) {
+                Region region = layout.regions.get(images.get(i));
+                if(region == null || region.atlas != atlas) continue;
+
+                int rowBytes = region.width * 4;
+                for(int row = 0; row < region.height; row++) {
+                    long source = MemoryUtil.memAddress(pixels[i]) + (long) row * rowBytes;
+                    long destination = MemoryUtil.memAddress(page) + ((long) (region.y + row) * atlasSize + region.x) * 4;
+                    MemoryUtil.memCopy(source, destination, rowBytes);
+                }
+            }
+
+            File pageFile = pageFile(cacheDirectory, key, atlas);
+            if(!STBImageWrite.stbi_write_png(pageFile.getPath(), atlasSize, atlasSize, 4, page, atlasSize * 4)) {
+                assert false : "Error: (TextureAtlas) Could not write '" + pageFile + "'";
+            }
+            MemoryUtil.memFree(page);
+        }
+
+        for(ByteBuffer image : pixels) {
+            if(image != null) STBImage.stbi_image_free(image);
+        }
+
+        return layout;
+    }
+
+    // Changes whenever an image is added, removed or modified
+    private String cacheKey(int atlasSize, int padding) {
+        StringBuilder builder = new StringBuilder().append(atlasSize).append(':').append(padding);
+        for(String image : images) {
+            File file = new File(image);
+            builder.append('|').append(image).append(':').append(file.lastModified()).append(':').append(file.length());
+        }
+
+        return Integer.toHexString(builder.toString().hashCode());
+    }
+
+    // Every changed image set leaves a layout and pages under an old key, they are never read again
+    private static void deleteStale(File cacheDirectory, String key) {
+        File[] files = cacheDirectory.listFiles();
+        if(files == null) return;
+
+        for(File file : files) {
+            String name = file.getName();
+            if(!name.startsWith("atlas_")) continue;
+            if(name.startsWith("atlas_" + key + "_") || name.equals("atlas_" + key + ".json")) continue;
+
+            if(!file.delete()) assert false : "Error: (TextureAtlas) Could not delete '" + file + "'";
+        }
+    }
+
+    private static File pageFile(File cacheDirectory, String key, int atlas) {
+        return new File(cacheDirectory, "atlas_" + key + "_" + atlas + ".png");
+    }
+
+    private Layout readLayout(File layoutFile, File cacheDirectory, String key) {
+        if(!layoutFile.exists()) return null;
+
+        try {
+            Layout layout = new Gson().fromJson(new String(Files.readAllBytes(layoutFile.toPath())), Layout.class);
+            for(int i = 0; i < layout.atlasCount; i++) {
+                if(!pageFile(cacheDirectory, key, i).exists()) return null;
+            }
+            return layout;
+        } catch(IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void writeLayout(File layoutFile, Layout layout) {
+        try {
+            FileWriter writer = new FileWriter(layoutFile);
+            writer.write(new Gson().toJson(layout));
+            writer.close();
+        } catch(IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public Sprite getSprite(String resourceName) {
+        String path = new File(resourceName).getAbsolutePath();
+
+        assert sprites.containsKey(path)
+                : "Error: Image '" + resourceName + "' is not part of a built texture atlas";
+        return sprites.getOrDefault(path, null);
+    }
+
+    public List<Texture> getTextures() { return this.textures; }
+
+}
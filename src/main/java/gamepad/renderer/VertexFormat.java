@@ -0,0 +1,210 @@
+package gamepad.renderer;
+
+import org.joml.Vector2f;
+import org.joml.Vector4f;
+import org.lwjgl.opengl.GL30;
+
+import java.nio.ByteBuffer;
+
+public enum VertexFormat {
+
+    // Vertex (36 bytes)
+    // ==========
+    // Pos              Color                           tex coords      tex id
+    // float, float,    float, float, float, float      float, float    float
+    FLOAT("assets/shaders/default.glsl", 9 * Float.BYTES) {
+        @Override
+        public void setupAttributes(int baseOffset) {
+            Graphics.get().vertexAttribPointer(0, 2, GL30.GL_FLOAT, false, vertexSizeBytes, baseOffset);
+            Graphics.get().enableVertexAttribArray(0);
+
+            Graphics.get().vertexAttribPointer(1, 4, GL30.GL_FLOAT, false, vertexSizeBytes, baseOffset + 2 * Float.BYTES);
+            Graphics.get().enableVertexAttribArray(1);
+
+            Graphics.get().vertexAttribPointer(2, 2, GL30.GL_FLOAT, false, vertexSizeBytes, baseOffset + 6 * Float.BYTES);
+            Graphics.get().enableVertexAttribArray(2);
+
+            Graphics.get().vertexAttribPointer(3, 1, GL30.GL_FLOAT, false, vertexSizeBytes, baseOffset + 8 * Float.BYTES);
+            Graphics.get().enableVertexAttribArray(3);
+        }
+
+        @Override
+        public void putSprite(ByteBuffer buffer, int offset, float x, float y, float width, float height,
+                              Vector4f color, Vector2f[] texCoords, int texID) {
+            putQuad(FLOAT_VERTEX, vertexSizeBytes, buffer, offset, x, y, width, height, color, texCoords, texID);
+        }
+    },
+
+    // Vertex (20 bytes)
+    // ==========
+    // Pos              Color                   tex coords              tex id
+    // float, float,    ubyte x 4 normalized    ushort x 2 normalized   int
+    PACKED("assets/shaders/defaultPacked.glsl", 2 * Float.BYTES + 4 + 2 * Short.BYTES + Integer.BYTES) {
+        @Override
+        public void setupAttributes(int baseOffset) {
+            Graphics.get().vertexAttribPointer(0, 2, GL30.GL_FLOAT, false, vertexSizeBytes, baseOffset);
+            Graphics.get().enableVertexAttribArray(0);
+
+            Graphics.get().vertexAttribPointer(1, 4, GL30.GL_UNSIGNED_BYTE, true, vertexSizeBytes, baseOffset + 8);
+            Graphics.get().enableVertexAttribArray(1);
+
+            Graphics.get().vertexAttribPointer(2, 2, GL30.GL_UNSIGNED_SHORT, true, vertexSizeBytes, baseOffset + 12);
+            Graphics.get().enableVertexAttribArray(2);
+
+            Graphics.get().vertexAttribIPointer(3, 1, GL30.GL_INT, vertexSizeBytes, baseOffset + 16);
+            Graphics.get().enableVertexAttribArray(3);
+        }
+
+        @Override
+        public void putSprite(ByteBuffer buffer, int offset, float x, float y, float width, float height,
+                              Vector4f color, Vector2f[] texCoords, int texID) {
+            putQuad(PACKED_VERTEX, vertexSizeBytes, buffer, offset, x, y, width, height, color, texCoords, texID);
+        }
+    },
+
+    // Instance (52 bytes), drawn over a shared unit quad
+    // ==========
+    // Pos + scale                      Color                           tex rect (min, max)             tex id
+    // float, float, float, float,      float, float, float, float      float, float, float, float      float
+    INSTANCED("assets/shaders/defaultInstanced.glsl", 13 * Float.BYTES) {
+        @Override
+        public void setupAttributes(int baseOffset) {
+            Graphics.get().vertexAttribPointer(1, 4, GL30.GL_FLOAT, false, vertexSizeBytes, baseOffset);
+            Graphics.get().enableVertexAttribArray(1);
+            Graphics.get().vertexAttribDivisor(1, 1);
+
+            Graphics.get().vertexAttribPointer(2, 4, GL30.GL_FLOAT, false, vertexSizeBytes, baseOffset + 4 * Float.BYTES);
+            Graphics.get().enableVertexAttribArray(2);
+            Graphics.get().vertexAttribDivisor(2, 1);
+
+            Graphics.get().vertexAttribPointer(3, 4, GL30.GL_FLOAT, false, vertexSizeBytes, baseOffset + 8 * Float.BYTES);
+            Graphics.get().enableVertexAttribArray(3);
+            Graphics.get().vertexAttribDivisor(3, 1);
+
+            Graphics.get().vertexAttribPointer(4, 1, GL30.GL_FLOAT, false, vertexSizeBytes, baseOffset + 12 * Float.BYTES);
+            Graphics.get().enableVertexAttribArray(4);
+            Graphics.get().vertexAttribDivisor(4, 1);
+        }
+
+        @Override
+        public void putSprite(ByteBuffer buffer, int offset, float x, float y, float width, float height,
+                              Vector4f color, Vector2f[] texCoords, int texID) {
+            buffer.putFloat(offset, x);
+            buffer.putFloat(offset + 4, y);
+            buffer.putFloat(offset + 8, width);
+            buffer.putFloat(offset + 12, height);
+
+            buffer.putFloat(offset + 16, color.x);
+            buffer.putFloat(offset + 20, color.y);
+            buffer.putFloat(offset + 24, color.z);
+            buffer.putFloat(offset + 28, color.w);
+
+            // Bottom left and top right corners, the shader interpolates the rest
+            buffer.putFloat(offset + 32, texCoords[2].x);
+            buffer.putFloat(offset + 36, texCoords[2].y);
+            buffer.putFloat(offset + 40, texCoords[0].x);
+            buffer.putFloat(offset + 44, texCoords[0].y);
+
+            buffer.putFloat(offset + 48, texID);
+        }
+
+        @Override
+        public int getSpriteSizeBytes() { return this.vertexSizeBytes; }
+    };
+
+    // Unit quad corners in the same order as a sprite's texture coordinates
+    public static final float[] UNIT_QUAD = {
+            1.0f, 1.0f,
+            1.0f, 0.0f,
+            0.0f, 0.0f,
+            0.0f, 1.0f
+    };
+
+    private final String shaderPath;
+    protected final int vertexSizeBytes;
+
+    VertexFormat(String shaderPath, int vertexSizeBytes) {
+        this.shaderPath = shaderPath;
+        this.vertexSizeBytes = vertexSizeBytes;
+    }
+
+    // Sets up the attribute pointers for the currently bound VAO and VBO
+    public void setupAttributes() {
+        setupAttributes(0);
+    }
+
+    // Base offset in bytes lets instanced batches start drawing at a later instance
+    public abstract void setupAttributes(int baseOffset);
+
+    // Writes one sprite at the given byte offset, getSpriteSizeBytes() long
+    public abstract void putSprite(ByteBuffer buffer, int offset, float x, float y, float width, float height,
+                                   Vector4f color, Vector2f[] texCoords, int texID);
+
+    // One vertex of a four vertex format
+    private interface VertexWriter {
+        void put(ByteBuffer buffer, int offset, float x, float y, Vector4f color, Vector2f texCoords, int texID);
+    }
+
+    private static final VertexWriter FLOAT_VERTEX = (buffer, offset, x, y, color, texCoords, texID) -> {
+        buffer.putFloat(offset, x);
+        buffer.putFloat(offset + 4, y);
+
+        buffer.putFloat(offset + 8, color.x);
+        buffer.putFloat(offset + 12, color.y);
+        buffer.putFloat(offset + 16, color.z);
+        buffer.putFloat(offset + 20, color.w);
+
+        buffer.putFloat(offset + 24, texCoords.x);
+        buffer.putFloat(offset + 28, texCoords.y);
+
+        buffer.putFloat(offset + 32, texID);
+    };
+
+    private static final VertexWriter PACKED_VERTEX = (buffer, offset, x, y, color, texCoords, texID) -> {
+        buffer.putFloat(offset, x);
+        buffer.putFloat(offset + 4, y);
+
+        buffer.put(offset + 8, toUnsignedByte(color.x));
+        buffer.put(offset + 9, toUnsignedByte(color.y));
+        buffer.put(offset + 10, toUnsignedByte(color.z));
+        buffer.put(offset + 11, toUnsignedByte(color.w));
+
+        buffer.putShort(offset + 12, toUnsignedShort(texCoords.x));
+        buffer.putShort(offset + 14, toUnsignedShort(texCoords.y));
+
+        buffer.putInt(offset + 16, texID);
+    };
+
+    // The four corners of a sprite in the order of its texture coordinates
+    private static void putQuad(VertexWriter writer, int vertexSizeBytes, ByteBuffer buffer, int offset,
+                                float x, float y, float width, float height,
+                                Vector4f color, Vector2f[] texCoords, int texID) {
+        float xAdd = 1.0f;
+        float yAdd = 1.0f;
+        for (int i=0; i < 4; i++) {
+            if (i == 1) {
+                yAdd = 0.0f;
+            } else if (i == 2) {
+                xAdd = 0.0f;
+            } else if (i == 3) {
+                yAdd = 1.0f;
+            }
+
+            writer.put(buffer, offset, x + (xAdd * width), y + (yAdd * height), color, texCoords[i], texID);
+            offset += vertexSizeBytes;
+        }
+    }
+
+    public String getShaderPath() { return this.shaderPath; }
+    public int getVertexSizeBytes() { return this.vertexSizeBytes; }
+    public int getSpriteSizeBytes() { return this.vertexSizeBytes * 4; }
+    public boolean isInstanced() { return this == INSTANCED; }
+
+    private static byte toUnsignedByte(float value) {
+        return (byte) Math.round(Math.max(0.0f, Math.min(1.0f, value)) * 255.0f);
+    }
+
+    private static short toUnsignedShort(float value) {
+        return (short) Math.round(Math.max(0.0f, Math.min(1.0f, value)) * 65535.0f);
+    }
+}
@@ -6,6 +6,7 @@ import gamepad.object.GameObject;
 import gamepad.object.components.*;
 import gamepad.renderer.DebugDraw;
 import gamepad.utils.AssetPool;
+import gamepad.utils.Settings;
 import gamepad.utils.Transform;
 import imgui.ImGui;
 import imgui.ImVec2;
@@ -47,6 +48,17 @@ public class LevelEditorScene extends Scene {
     private void loadResources() {
         AssetPool.getShader("assets/shaders/default.glsl");
 
+        // Only images the scene takes sprites from, everything added is decoded and packed on a cold start
+        if(Settings.USE_TEXTURE_ATLAS) {
+            AssetPool.addAtlasImage("assets/images/spritesheets/decorationsAndBlocks.png");
+            AssetPool.buildAtlas();
+
+            AssetPool.addSpritesheet("assets/images/spritesheets/decorationsAndBlocks.png",
+                    new Spritesheet(AssetPool.getAtlasSprite("assets/images/spritesheets/decorationsAndBlocks.png"),
+                            16, 16, 81, 0));
+            return;
+        }
+
         AssetPool.addSpritesheet("assets/images/spritesheets/decorationsAndBlocks.png",
                 new Spritesheet(AssetPool.getTexture("assets/images/spritesheets/decorationsAndBlocks.png"), 16, 16,
                         81, 0));
@@ -55,12 +67,7 @@ public class LevelEditorScene extends Scene {
     @Override
     public void update(float deltaTime) {
         levelEditorComponents.update(deltaTime);
-
-        for(GameObject gameObject : this.gameObjects) {
-            gameObject.update(deltaTime);
-        }
-
-        this.renderer.render();
+        updateComponents(deltaTime);
     }
 
     @Override
@@ -100,5 +107,6 @@ public class LevelEditorScene extends Scene {
 
         ImGui.end();
 
+        this.renderer.imgui();
     }
 }
@@ -8,7 +8,7 @@ public class LevelScene extends Scene {
 
     @Override
     public void update(float deltaTime) {
-
+        updateComponents(deltaTime);
     }
 
 }
@@ -5,9 +5,12 @@ import com.google.gson.GsonBuilder;
 import gamepad.Camera;
 import gamepad.data.typeAdapter.ComponentAdapter;
 import gamepad.data.typeAdapter.GameObjectAdapter;
+import gamepad.data.typeAdapter.TransformAdapter;
 import gamepad.object.GameObject;
 import gamepad.object.components.Component;
+import gamepad.object.components.UpdateList;
 import gamepad.renderer.Renderer;
+import gamepad.utils.Transform;
 import imgui.ImGui;
 
 import java.io.FileWriter;
@@ -23,6 +26,8 @@ public abstract class Scene {
 
     private boolean isRunning = false;
     protected ArrayList<GameObject> gameObjects = new ArrayList<>();
+    // Only the components that override update(), filled as objects start
+    protected UpdateList updateList = new UpdateList();
     protected GameObject activeGameObject = null;
     protected boolean levelLoaded = false;
 
@@ -33,6 +38,7 @@ public abstract class Scene {
     public void start() {
         for(GameObject gameObject : gameObjects) {
             gameObject.start();
+            gameObject.setUpdateList(updateList);
             this.renderer.add(gameObject);
         }
         this.isRunning = true;
@@ -44,18 +50,43 @@ public abstract class Scene {
         } else {
             gameObjects.add(gameObject);
             gameObject.start();
+            gameObject.setUpdateList(updateList);
             this.renderer.add(gameObject);
         }
     }
 
+    public void removeGameObjectFromScene(GameObject gameObject) {
+        if(!gameObjects.remove(gameObject)) return;
+        this.renderer.remove(gameObject);
+        gameObject.setUpdateList(null);
+        gameObject.destroy();
+        if(activeGameObject == gameObject) activeGameObject = null;
+    }
+
     public abstract void update(float deltaTime);
 
+    // Updates the components of every object in the scene
+    protected void updateComponents(float deltaTime) {
+        updateList.update(deltaTime);
+    }
+
+    // Called between updates, builds what render() draws. Alpha is how far into the next step to draw.
+    public void prepareRender(float alpha) {
+        this.renderer.prepare(alpha);
+    }
+
+    // Only issues GL calls, may overlap the next update
+    public void render() {
+        this.renderer.render();
+    }
+
     public Camera getCamera() { return this.camera; }
 
     public void sceneImgui() {
         if(activeGameObject != null) {
             ImGui.begin("Inspector");
             activeGameObject.imgui();
+            if(ImGui.button("Delete")) removeGameObjectFromScene(activeGameObject);
             ImGui.end();
         }
 
@@ -66,15 +97,21 @@ public abstract class Scene {
 
     }
 
+    public void destroy() {
+        this.renderer.destroy();
+        this.updateList.clear();
+        for(GameObject gameObject : gameObjects) gameObject.destroy();
+    }
+
     public void saveExit() {
-        Gson gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .registerTypeAdapter(Component.class, new ComponentAdapter())
-                .registerTypeAdapter(GameObject.class, new GameObjectAdapter())
-                .create();
+        save("level.txt");
+    }
+
+    public void save(String path) {
+        Gson gson = createGson();
 
         try {
-            FileWriter writer = new FileWriter("level.txt");
+            FileWriter writer = new FileWriter(path);
             writer.write(gson.toJson(this.gameObjects));
             writer.close();
         } catch (IOException e) {
@@ -83,15 +120,15 @@ public abstract class Scene {
     }
 
     public void load() {
-        Gson gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .registerTypeAdapter(Component.class, new ComponentAdapter())
-                .registerTypeAdapter(GameObject.class, new GameObjectAdapter())
-                .create();
+        load("level.txt");
+    }
+
+    public void load(String path) {
+        Gson gson = createGson();
         String inFile = "";
 
         try {
-            inFile = new String(Files.readAllBytes(Paths.get("level.txt")));
+            inFile = new String(Files.readAllBytes(Paths.get(path)));
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -122,4 +159,13 @@ public abstract class Scene {
         }
     }
 
+    private static Gson createGson() {
+        return new GsonBuilder()
+                .setPrettyPrinting()
+                .registerTypeAdapter(Component.class, new ComponentAdapter())
+                .registerTypeAdapter(GameObject.class, new GameObjectAdapter())
+                .registerTypeAdapter(Transform.class, new TransformAdapter())
+                .create();
+    }
+
 }
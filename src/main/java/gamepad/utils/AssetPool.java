@@ -1,8 +1,11 @@
 package gamepad.utils;
 
+import gamepad.object.components.Sprite;
 import gamepad.object.components.Spritesheet;
 import gamepad.renderer.Shader;
 import gamepad.renderer.Texture;
+import gamepad.renderer.TextureArray;
+import gamepad.renderer.TextureAtlas;
 
 import java.io.File;
 import java.util.HashMap;
@@ -13,15 +16,18 @@ public class AssetPool {
     private static final Map<String, Shader> shaders = new HashMap<>();
     private static final Map<String, Texture> textures = new HashMap<>();
     private static final Map<String, Spritesheet> spritesheets = new HashMap<>();
+    private static final Map<String, TextureArray> textureArrays = new HashMap<>();
+    private static final TextureAtlas atlas = new TextureAtlas();
 
-    public static Shader getShader(String resourceName) {
+    public static Shader getShader(String resourceName, String... defines) {
         File file = new File(resourceName);
-        if(AssetPool.shaders.containsKey(file.getAbsolutePath())) {
-            return AssetPool.shaders.get(file.getAbsolutePath());
+        String key = file.getAbsolutePath() + String.join(",", defines);
+        if(AssetPool.shaders.containsKey(key)) {
+            return AssetPool.shaders.get(key);
         } else {
-            Shader shader = new Shader(resourceName);
+            Shader shader = new Shader(resourceName, defines);
             shader.compile();
-            AssetPool.shaders.put(file.getAbsolutePath(), shader);
+            AssetPool.shaders.put(key, shader);
             return shader;
         }
     }
@@ -34,10 +40,38 @@ public class AssetPool {
             Texture texture = new Texture();
             texture.init(resourceName);
             AssetPool.textures.put(file.getAbsolutePath(), texture);
+
+            if(Settings.USE_TEXTURE_ARRAYS) {
+                getTextureArray(texture.getWidth(), texture.getHeight()).add(texture);
+            }
             return texture;
         }
     }
 
+    public static TextureArray getTextureArray(int width, int height) {
+        String key = width + "x" + height;
+        if(AssetPool.textureArrays.containsKey(key)) {
+            return AssetPool.textureArrays.get(key);
+        } else {
+            TextureArray textureArray = new TextureArray(width, height);
+            AssetPool.textureArrays.put(key, textureArray);
+            return textureArray;
+        }
+    }
+
+    // Images have to be added before the atlas is built
+    public static void addAtlasImage(String resourceName) {
+        AssetPool.atlas.add(resourceName);
+    }
+
+    public static void buildAtlas() {
+        AssetPool.atlas.build(Settings.ATLAS_CACHE_DIRECTORY, Settings.ATLAS_SIZE, Settings.ATLAS_PADDING);
+    }
+
+    public static Sprite getAtlasSprite(String resourceName) {
+        return AssetPool.atlas.getSprite(resourceName);
+    }
+
     public static void addSpritesheet(String resourceName, Spritesheet spritesheet) {
         File file = new File(resourceName);
         if(!AssetPool.spritesheets.containsKey(file.getAbsolutePath())) {
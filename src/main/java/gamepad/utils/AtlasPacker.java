@@ -0,0 +1,100 @@
+package gamepad.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Skyline bottom-left rectangle packer
+public class AtlasPacker {
+
+    private final int width, height;
+
+    // Segments of the skyline as { x, y, width }, ordered by x and covering the full width
+    private final List<int[]> skyline;
+
+    public AtlasPacker(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.skyline = new ArrayList<>();
+        this.skyline.add(new int[] { 0, 0, width });
+    }
+
+    // Returns false if the rectangle does not fit, otherwise writes its position into result
+    public boolean pack(int rectWidth, int rectHeight, int[] result) {
+        int bestIndex = -1;
+        int bestX = 0;
+        int bestY = Integer.MAX_VALUE;
+        int bestWidth = Integer.MAX_VALUE;
+
+        for(int i = 0; i < skyline.size(); i++) {
+            int[] segment = skyline.get(i);
+            if(segment[0] + rectWidth > width) break;
+
+            int y = fitHeight(i, rectWidth);
+            if(y + rectHeight > height) continue;
+
+            // Prefer the lowest position, then the tightest segment
+            if(y < bestY || (y == bestY && segment[2] < bestWidth)) {
+                bestIndex = i;
+                bestX = segment[0];
+                bestY = y;
+                bestWidth = segment[2];
+            }
+        }
+
+        if(bestIndex == -1) return false;
+
+        insert(bestIndex, bestX, bestY + rectHeight, rectWidth);
+        result[0] = bestX;
+        result[1] = bestY;
+        return true;
+    }
+
+    // Height a rectangle starting at the given segment would have to sit at
+    private int fitHeight(int index, int rectWidth) {
+        int y = 0;
+        int remaining = rectWidth;
+        for(int i = index; remaining > 0; i++) {
+            int[] segment = skyline.get(i);
+            y = Math.max(y, segment[1]);
+            remaining -= segment[2];
+        }
+
+        return y;
+    }
+
+    private void insert(int index, int x, int y, int rectWidth) {
+        skyline.add(index, new int[] { x, y, rectWidth });
+
+        // Trim or remove the segments now covered by the new one
+        for(int i = index + 1; i < skyline.size(); i++) {
+            int[] previous = skyline.get(i - 1);
+            int[] segment = skyline.get(i);
+            int previousEnd = previous[0] + previous[2];
+
+            if(segment[0] >= previousEnd) break;
+
+            int shrink = previousEnd - segment[0];
+            segment[0] += shrink;
+            segment[2] -= shrink;
+
+            if(segment[2] > 0) break;
+            skyline.remove(i);
+            i--;
+        }
+
+        // Merge neighbours at the same height
+        for(int i = 0; i < skyline.size() - 1; i++) {
+            int[] segment = skyline.get(i);
+            int[] next = skyline.get(i + 1);
+            if(segment[1] == next[1]) {
+                segment[2] += next[2];
+                skyline.remove(i + 1);
+                i--;
+            }
+        }
+    }
+
+    public int getWidth() { return this.width; }
+    public int getHeight() { return this.height; }
+
+}
@@ -0,0 +1,61 @@
+package gamepad.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Structure of arrays storage for a fixed number of floats per entity. Entities live in chunks of
+// CHUNK_SIZE slots, a chunk holds its columns one after the other so every column of a chunk is
+// contiguous. Chunks are never reallocated, so views can keep a reference to the chunk of their slot:
+// column c of a slot is chunk[c * CHUNK_SIZE + offset(slot)].
+public class ColumnStore {
+
+    public static final int CHUNK_SIZE = 1024;
+
+    private final int columns;
+    private final ArrayList<float[]> chunks;
+
+    // Released slots are handed out again before the store grows
+    private int[] freeSlots;
+    private int freeCount;
+    private int nextSlot;
+
+    public ColumnStore(int columns) {
+        this.columns = columns;
+        this.chunks = new ArrayList<>();
+        this.freeSlots = new int[64];
+        this.freeCount = 0;
+        this.nextSlot = 0;
+    }
+
+    // Transforms are created on the update thread as well as the main thread
+    public synchronized int allocate() {
+        if(freeCount > 0) return freeSlots[--freeCount];
+
+        int slot = nextSlot++;
+        if(slot / CHUNK_SIZE >= chunks.size()) chunks.add(new float[columns * CHUNK_SIZE]);
+        return slot;
+    }
+
+    public synchronized void release(int slot) {
+        assert slot >= 0 && slot < nextSlot : "Error: (ColumnStore) Released slot " + slot + " was never allocated";
+
+        if(freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+    }
+
+    public synchronized float[] chunk(int slot) {
+        return chunks.get(slot / CHUNK_SIZE);
+    }
+
+    public static int offset(int slot) {
+        return slot % CHUNK_SIZE;
+    }
+
+    // For bulk passes, slots below getSlotCount() are laid out chunk after chunk. Released slots are included.
+    public synchronized float[] getChunk(int index) { return chunks.get(index); }
+    public synchronized int getChunkCount() { return chunks.size(); }
+    public synchronized int getSlotCount() { return nextSlot; }
+    public synchronized int getLiveCount() { return nextSlot - freeCount; }
+    public int getColumns() { return columns; }
+
+}
@@ -0,0 +1,273 @@
+package gamepad.utils;
+
+import imgui.ImDrawList;
+import imgui.ImGui;
+import imgui.ImVec2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Scoped CPU profiler. Scopes are registered once and timed with begin/end pairs that may nest.
+// Every thread records into its own buffers, allocated the first time it opens a scope, so recording
+// never allocates or locks. With Settings.PROFILING false every call returns right away and is compiled out.
+public class Profiler {
+
+    private static final int MAX_SCOPES = 64;
+    // Per thread and frame, further samples are counted as dropped
+    private static final int MAX_SAMPLES = 4096;
+    private static final int MAX_DEPTH = 32;
+    private static final int FRAME_HISTORY = 300;
+
+    private static final String[] scopeNames = new String[MAX_SCOPES];
+    private static int scopeCount = 0;
+
+    // Samples of one frame, indices are in the order the scopes were opened
+    private static class Samples {
+        final int[] scopes = new int[MAX_SAMPLES];
+        final int[] depths = new int[MAX_SAMPLES];
+        final long[] starts = new long[MAX_SAMPLES];
+        final long[] ends = new long[MAX_SAMPLES];
+        int count = 0;
+        int maxDepth = 0;
+        int dropped = 0;
+    }
+
+    // One per thread that ever opened a scope
+    private static class Lane {
+        final String thread;
+        Samples recording = new Samples();
+        // The last finished frame, what the timeline shows
+        Samples finished = new Samples();
+        // Sample index of every open scope, -1 if it was dropped
+        final int[] stack = new int[MAX_DEPTH];
+        int depth = 0;
+
+        Lane(String thread) {
+            this.thread = thread;
+        }
+    }
+
+    private static final ArrayList<Lane> lanes = new ArrayList<>();
+    private static final ThreadLocal<Lane> currentLane = ThreadLocal.withInitial(Profiler::createLane);
+
+    // Ring of frame times in milliseconds
+    private static final float[] frameTimes = new float[FRAME_HISTORY];
+    private static final float[] sortedFrameTimes = new float[FRAME_HISTORY];
+    private static int frameCursor = 0;
+    private static int frameCount = 0;
+    private static long frameStart = 0;
+    private static long finishedStart = 0, finishedEnd = 0;
+    private static boolean paused = false;
+
+    // Scratch for the ImGui window
+    private static final long[] scopeTotals = new long[MAX_SCOPES];
+    private static final int[] scopeCalls = new int[MAX_SCOPES];
+    private static final ImVec2 textSize = new ImVec2();
+
+    // Called once per scope, usually from a static initializer
+    public static synchronized int register(String name) {
+        assert scopeCount < MAX_SCOPES : "Error: (Profiler) Too many scopes, could not register '" + name + "'";
+
+        for(int i = 0; i < scopeCount; i++) {
+            if(scopeNames[i].equals(name)) return i;
+        }
+
+        scopeNames[scopeCount] = name;
+        return scopeCount++;
+    }
+
+    public static void begin(int scope) {
+        if(!Settings.PROFILING) return;
+
+        Lane lane = currentLane.get();
+        Samples samples = lane.recording;
+
+        int index = -1;
+        if(lane.depth < MAX_DEPTH && samples.count < MAX_SAMPLES) {
+            index = samples.count++;
+            samples.scopes[index] = scope;
+            samples.depths[index] = lane.depth;
+            samples.ends[index] = 0;
+            if(lane.depth > samples.maxDepth) samples.maxDepth = lane.depth;
+            samples.starts[index] = System.nanoTime();
+        } else {
+            samples.dropped++;
+        }
+
+        if(lane.depth < MAX_DEPTH) lane.stack[lane.depth] = index;
+        lane.depth++;
+    }
+
+    public static void end(int scope) {
+        if(!Settings.PROFILING) return;
+
+        long time = System.nanoTime();
+        Lane lane = currentLane.get();
+        assert lane.depth > 0 : "Error: (Profiler) end() of '" + scopeNames[scope] + "' without begin()";
+
+        lane.depth--;
+        if(lane.depth >= MAX_DEPTH) return;
+
+        int index = lane.stack[lane.depth];
+        if(index < 0) return;
+
+        assert lane.recording.scopes[index] == scope
+                : "Error: (Profiler) end() of '" + scopeNames[scope] + "' closes '" + scopeNames[lane.recording.scopes[index]] + "'";
+        lane.recording.ends[index] = time;
+    }
+
+    // Called by the main thread at the end of every frame, while no other thread records
+    public static void endFrame() {
+        if(!Settings.PROFILING) return;
+
+        long now = System.nanoTime();
+        if(frameStart != 0) {
+            frameTimes[frameCursor] = (now - frameStart) / 1_000_000.0f;
+            frameCursor = (frameCursor + 1) % FRAME_HISTORY;
+            if(frameCount < FRAME_HISTORY) frameCount++;
+        }
+
+        synchronized(lanes) {
+            for(Lane lane : lanes) {
+                // A scope still open refers into the recording buffer, keep it until the scope is closed
+                if(lane.depth > 0) continue;
+
+                if(!paused) {
+                    Samples swap = lane.finished;
+                    lane.finished = lane.recording;
+                    lane.recording = swap;
+                }
+                lane.recording.count = 0;
+                lane.recording.maxDepth = 0;
+                lane.recording.dropped = 0;
+            }
+        }
+
+        if(!paused) {
+            finishedStart = frameStart;
+            finishedEnd = now;
+        }
+        frameStart = now;
+    }
+
+    private static Lane createLane() {
+        Lane lane = new Lane(Thread.currentThread().getName());
+        synchronized(lanes) {
+            lanes.add(lane);
+        }
+        return lane;
+    }
+
+    // Frame time below which the given fraction of the recorded frames fall, in milliseconds
+    public static float percentile(float fraction) {
+        if(frameCount == 0) return 0;
+
+        System.arraycopy(frameTimes, 0, sortedFrameTimes, 0, frameCount);
+        Arrays.sort(sortedFrameTimes, 0, frameCount);
+        int index = (int) Math.ceil(fraction * frameCount) - 1;
+        return sortedFrameTimes[Math.max(0, Math.min(frameCount - 1, index))];
+    }
+
+    public static void imgui() {
+        if(!Settings.PROFILING) return;
+
+        ImGui.begin("Profiler");
+        ImGui.text(String.format("Frame p50: %.2f ms, p95: %.2f ms, p99: %.2f ms (last %d frames)",
+                percentile(0.50f), percentile(0.95f), percentile(0.99f), frameCount));
+        // The oldest frame is at the cursor once the ring is full
+        ImGui.plotLines("##FrameTimes", frameTimes, frameCount, frameCount < FRAME_HISTORY ? 0 : frameCursor,
+                "Frame time (ms)", 0.0f, Math.max(percentile(0.99f) * 1.2f, 1.0f), 0.0f, 60.0f);
+        if(ImGui.checkbox("Pause timeline", paused)) paused = !paused;
+
+        synchronized(lanes) {
+            timeline();
+            ImGui.separator();
+            scopeTable();
+        }
+
+        ImGui.end();
+    }
+
+    // One row per nesting level of every thread, scaled so the last frame fills the width
+    private static void timeline() {
+        long duration = finishedEnd - finishedStart;
+        if(duration <= 0) return;
+
+        ImDrawList drawList = ImGui.getWindowDrawList();
+        float width = Math.max(ImGui.getContentRegionAvailX(), 100.0f);
+        float rowHeight = ImGui.getTextLineHeight() + 4.0f;
+        float x0 = ImGui.getCursorScreenPosX();
+        float y = ImGui.getCursorScreenPosY();
+        float top = y;
+        int textColor = ImGui.getColorU32(1.0f, 1.0f, 1.0f, 1.0f);
+
+        for(Lane lane : lanes) {
+            Samples samples = lane.finished;
+            if(samples.count == 0) continue;
+
+            String label = lane.thread + (samples.dropped > 0 ? " (" + samples.dropped + " dropped)" : "");
+            drawList.addText(x0, y, textColor, label);
+            y += rowHeight;
+
+            for(int i = 0; i < samples.count; i++) {
+                // Opened in the frame before, or still open when the frame ended
+                long start = Math.max(samples.starts[i], finishedStart);
+                long end = samples.ends[i] == 0 ? finishedEnd : Math.min(samples.ends[i], finishedEnd);
+                if(end <= start) continue;
+
+                float left = x0 + width * (start - finishedStart) / duration;
+                float right = Math.max(left + 1.0f, x0 + width * (end - finishedStart) / duration);
+                float rowTop = y + samples.depths[i] * rowHeight;
+                float rowBottom = rowTop + rowHeight - 1.0f;
+
+                int scope = samples.scopes[i];
+                drawList.addRectFilled(left, rowTop, right, rowBottom, scopeColor(scope));
+
+                String name = scopeNames[scope];
+                ImGui.calcTextSize(textSize, name);
+                if(textSize.x + 4.0f < right - left) drawList.addText(left + 2.0f, rowTop + 2.0f, textColor, name);
+
+                if(ImGui.isMouseHoveringRect(left, rowTop, right, rowBottom)) {
+                    ImGui.setTooltip(String.format("%s: %.3f ms", name, (end - start) / 1_000_000.0f));
+                }
+            }
+            y += (samples.maxDepth + 1) * rowHeight;
+        }
+
+        // Reserve the space drawn into so the widgets below start after it
+        ImGui.dummy(width, y - top);
+    }
+
+    // Time spent in every scope during the last frame, summed over all threads
+    private static void scopeTable() {
+        Arrays.fill(scopeTotals, 0);
+        Arrays.fill(scopeCalls, 0);
+        for(Lane lane : lanes) {
+            Samples samples = lane.finished;
+            for(int i = 0; i < samples.count; i++) {
+                if(samples.ends[i] == 0) continue;
+                scopeTotals[samples.scopes[i]] += samples.ends[i] - samples.starts[i];
+                scopeCalls[samples.scopes[i]]++;
+            }
+        }
+
+        for(int i = 0; i < scopeCount; i++) {
+            if(scopeCalls[i] == 0) continue;
+            ImGui.text(String.format("%s: %.3f ms (%d calls)", scopeNames[i], scopeTotals[i] / 1_000_000.0f, scopeCalls[i]));
+        }
+    }
+
+    // Fixed color per scope, spread around the hue circle
+    private static int scopeColor(int scope) {
+        float hue = (scope * 0.618034f) % 1.0f;
+        float r = Math.abs(hue * 6.0f - 3.0f) - 1.0f;
+        float g = 2.0f - Math.abs(hue * 6.0f - 2.0f);
+        float b = 2.0f - Math.abs(hue * 6.0f - 4.0f);
+        return ImGui.getColorU32(clamp(r) * 0.6f + 0.2f, clamp(g) * 0.6f + 0.2f, clamp(b) * 0.6f + 0.2f, 1.0f);
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0.0f, Math.min(1.0f, value));
+    }
+
+}
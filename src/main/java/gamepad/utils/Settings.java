@@ -1,5 +1,7 @@
 package gamepad.utils;
 
+import gamepad.renderer.VertexFormat;
+
 import java.io.File;
 
 public class Settings {
@@ -8,14 +10,63 @@ public class Settings {
     public static int GRID_WIDTH = 32;
     public static int GRID_HEIGHT = 32;
 
+    // Simulation Settings
+    // Scenes are updated in fixed steps of this many seconds
+    public static float FIXED_TIMESTEP = 1.0f / 60.0f;
+    // Steps run in one frame at most, time beyond that is dropped so a slow frame cannot snowball
+    public static int MAX_STEPS_PER_FRAME = 5;
+    // Draw moving sprites between their last two steps
+    public static boolean INTERPOLATE_RENDERING = true;
+    public static boolean VSYNC = true;
+    // Run the updates of components marked with @UpdateAccess on the job system's workers
+    public static boolean PARALLEL_UPDATE = false;
+
+    // Job Settings
+    // Worker threads besides the main thread, read when the job system starts
+    public static int JOB_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    // Debug Settings
+    // Record profiler scopes, when false every Profiler call is compiled out. Off unless started with
+    // -Dgamepad.profiling=true, the Launcher turns it on for the editor and headless runs.
+    public static final boolean PROFILING = Boolean.getBoolean("gamepad.profiling");
+
+    // Renderer Settings
+    public static VertexFormat BATCH_VERTEX_FORMAT = VertexFormat.FLOAT;
+    // Upload same-sized textures into texture arrays so a batch is limited by size classes, not textures
+    public static boolean USE_TEXTURE_ARRAYS = false;
+    // Fraction of a batch's sprites that must be dirty before the whole batch is uploaded in one call
+    public static float BATCH_FULL_UPLOAD_THRESHOLD = 0.5f;
+    // Clean sprite slots allowed between two dirty runs before they are uploaded separately
+    public static int BATCH_UPLOAD_MERGE_GAP = 4;
+    // Frames a moving sprite has to stay still before it is moved back into a static batch
+    public static int STATIC_DEMOTE_FRAMES = 120;
+    // Batches filled below this fraction after a removal are merged into another batch of the same kind
+    public static float BATCH_MERGE_THRESHOLD = 0.25f;
+    // Skip sprites outside the camera, found through a uniform grid with cells of this size
+    public static boolean FRUSTUM_CULLING = true;
+    public static float CULLING_CELL_SIZE = 256.0f;
+    // Generate the vertices of changed batches on the job system's workers, uploads stay on the GL thread
+    public static boolean PARALLEL_VERTEX_GENERATION = false;
+    // Run game logic for the next frame on its own thread while the GL thread draws the current one
+    public static boolean PIPELINED_RENDERING = false;
+    // Keep transform and sprite color values in shared column stores instead of one set per object,
+    // read when a transform or sprite renderer is created
+    public static boolean COLUMN_STORAGE = true;
+    // Pack the editor's images into shared atlas textures at startup
+    public static boolean USE_TEXTURE_ATLAS = false;
+    public static int ATLAS_SIZE = 2048;
+    public static int ATLAS_PADDING = 1;
+
     // File Settings
     public static final File HOME_DIRECTORY = new File(System.getProperty("user.home"));
     public static final File GAMEPAD_DIRECTORY = new File(HOME_DIRECTORY + File.separator + ".gamepad");
     public static final File INI_SAVE_LOCATION = new File(GAMEPAD_DIRECTORY + File.separator + "editorcache.dat");
+    public static final File ATLAS_CACHE_DIRECTORY = new File(GAMEPAD_DIRECTORY + File.separator + "atlas");
 
     static {
         if(!HOME_DIRECTORY.exists()) HOME_DIRECTORY.mkdirs();
         if(!GAMEPAD_DIRECTORY.exists()) GAMEPAD_DIRECTORY.mkdirs();
+        if(!ATLAS_CACHE_DIRECTORY.exists()) ATLAS_CACHE_DIRECTORY.mkdirs();
     }
 
 }
@@ -1,40 +1,165 @@
 package gamepad.utils;
 
 import org.joml.Vector2f;
+import org.joml.Vector2fc;
 
 public class Transform {
 
-    public Vector2f position;
-    public Vector2f scale;
+    // Columns of a transform, see ColumnStore
+    public static final int X = 0, Y = 1, SCALE_X = 2, SCALE_Y = 3, PREVIOUS_X = 4, PREVIOUS_Y = 5;
+    public static final int COLUMNS = 6;
+
+    // Shared by every transform created while Settings.COLUMN_STORAGE is on. A slot is only given back by
+    // release(), a transform that is dropped without it keeps its slot for good.
+    private static final ColumnStore store = new ColumnStore(COLUMNS);
+
+    // Column c of this transform is data[base + c * stride], either a store chunk or its own array.
+    // Serialized through TransformAdapter.
+    private transient float[] data;
+    private transient int base, stride;
+    private transient int slot = -1;
+
+    // Bumped by every mutator that actually changes something
+    private transient int version = 0;
+    private transient Runnable changeListener = null;
+
+    // Fixed simulation steps taken so far, see beginStep()
+    private static int currentStep = 0;
+    // Step this transform last moved in, its position at the start of that step is kept to interpolate rendering
+    private transient int movedStep = -1;
 
     public Transform() {
-        this(new Vector2f(), new Vector2f());
+        this(0, 0, 0, 0);
     }
 
     public Transform(Vector2f position) {
-        this(position, new Vector2f());
+        this(position.x, position.y, 0, 0);
     }
 
     public Transform(Vector2f position, Vector2f scale) {
-        this.position = position;
-        this.scale = scale;
+        this(position.x, position.y, scale.x, scale.y);
     }
 
+    public Transform(float x, float y, float scaleX, float scaleY) {
+        if(Settings.COLUMN_STORAGE) {
+            this.slot = store.allocate();
+            this.data = store.chunk(slot);
+            this.base = ColumnStore.offset(slot);
+            this.stride = ColumnStore.CHUNK_SIZE;
+        } else {
+            this.data = new float[COLUMNS];
+            this.base = 0;
+            this.stride = 1;
+        }
+
+        set(X, x);
+        set(Y, y);
+        set(SCALE_X, scaleX);
+        set(SCALE_Y, scaleY);
+    }
+
+    private float get(int column) { return data[base + column * stride]; }
+    private void set(int column, float value) { data[base + column * stride] = value; }
+
     public Transform copy() {
-        return new Transform(new Vector2f(this.position), new Vector2f(this.scale));
+        return new Transform(getX(), getY(), getScaleX(), getScaleY());
     }
 
     public void copy(Transform to) {
-        to.position.set(this.position);
-        to.scale.set(this.scale);
+        to.setPosition(getX(), getY());
+        to.setScale(getScaleX(), getScaleY());
+    }
+
+    public float getX() { return get(X); }
+    public float getY() { return get(Y); }
+    public float getScaleX() { return get(SCALE_X); }
+    public float getScaleY() { return get(SCALE_Y); }
+    public int getVersion() { return this.version; }
+
+    public Vector2f getPosition(Vector2f dest) { return dest.set(get(X), get(Y)); }
+    public Vector2f getScale(Vector2f dest) { return dest.set(get(SCALE_X), get(SCALE_Y)); }
+
+    public void setPosition(float x, float y) {
+        if(get(X) == x && get(Y) == y) return;
+        if(movedStep != currentStep) {
+            set(PREVIOUS_X, get(X));
+            set(PREVIOUS_Y, get(Y));
+            movedStep = currentStep;
+        }
+        set(X, x);
+        set(Y, y);
+        changed();
+    }
+
+    public void setPosition(Vector2fc position) {
+        setPosition(position.x(), position.y());
+    }
+
+    public void translate(float dx, float dy) {
+        setPosition(get(X) + dx, get(Y) + dy);
+    }
+
+    public void setScale(float x, float y) {
+        if(get(SCALE_X) == x && get(SCALE_Y) == y) return;
+        set(SCALE_X, x);
+        set(SCALE_Y, y);
+        changed();
     }
 
+    public void setScale(Vector2fc scale) {
+        setScale(scale.x(), scale.y());
+    }
+
+    // Called before every fixed simulation step
+    public static void beginStep() {
+        currentStep++;
+    }
+
+    public boolean movedLastStep() { return movedStep == currentStep; }
+
+    // Position between the start and the end of the last step, alpha 0 is the start. Written into dest.
+    public Vector2f getInterpolatedPosition(float alpha, Vector2f dest) {
+        if(!movedLastStep()) return dest.set(get(X), get(Y));
+
+        float previousX = get(PREVIOUS_X), previousY = get(PREVIOUS_Y);
+        return dest.set(previousX + (get(X) - previousX) * alpha, previousY + (get(Y) - previousY) * alpha);
+    }
+
+    // Only one listener, the sprite renderer of the owning game object
+    public void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    private void changed() {
+        version++;
+        if(changeListener != null) changeListener.run();
+    }
+
+    // Gives the store slot back, the transform keeps working on a private copy of its values
+    public void release() {
+        if(slot < 0) return;
+
+        float[] values = new float[COLUMNS];
+        for(int c = 0; c < COLUMNS; c++) values[c] = get(c);
+        store.release(slot);
+
+        this.slot = -1;
+        this.data = values;
+        this.base = 0;
+        this.stride = 1;
+    }
+
+    // Slot in getStore(), -1 if the values are not kept in the store
+    public int getSlot() { return this.slot; }
+    public static ColumnStore getStore() { return store; }
+
     @Override
     public boolean equals(Object obj) {
         if(obj == null) return false;
         if(!(obj instanceof Transform)) return false;
 
         Transform t = (Transform) obj;
-        return t.position.equals(this.position) && t.scale.equals(this.scale);
+        return t.getX() == getX() && t.getY() == getY()
+                && t.getScaleX() == getScaleX() && t.getScaleY() == getScaleY();
     }
 }
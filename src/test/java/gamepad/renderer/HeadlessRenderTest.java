@@ -0,0 +1,121 @@
+package gamepad.renderer;
+
+import gamepad.Window;
+import gamepad.object.GameObject;
+import gamepad.object.components.SpriteRenderer;
+import gamepad.scenes.LevelEditorScene;
+import gamepad.scenes.Scene;
+import gamepad.utils.Settings;
+import gamepad.utils.Transform;
+import org.joml.Vector2f;
+import org.joml.Vector4f;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Runs an empty editor scene for a number of steps on the null backend, the way Launcher --headless does,
+// and checks what reaches the backend. The saved level is never loaded, so the counts do not depend on it.
+public class HeadlessRenderTest {
+
+    private static final float SPRITE_SIZE = 32.0f;
+
+    private static NullBackend backend;
+    private Scene scene;
+
+    @BeforeClass
+    public static void setupBackend() {
+        backend = new NullBackend();
+        Graphics.set(backend);
+    }
+
+    @Before
+    public void setup() {
+        Settings.FRUSTUM_CULLING = true;
+        // Destroys the scene of the previous test
+        scene = new LevelEditorScene();
+        Window.setScene(scene);
+        scene.getCamera().setPosition(0.0f, 0.0f);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        Window.getScene().destroy();
+    }
+
+    @Test
+    public void stillSpritesAreUploadedOnce() {
+        for(int i = 0; i < 100; i++) addSprite((i % 10) * SPRITE_SIZE, (i / 10) * SPRITE_SIZE);
+
+        frame();
+        assertTrue("First frame uploads the sprites", RenderStats.bytesUploaded > 0);
+        long drawCalls = backend.getDrawCalls();
+
+        for(int step = 0; step < 60; step++) {
+            frame();
+            assertEquals("Still frame uploads nothing", 0, RenderStats.bytesUploaded);
+            assertEquals(100, RenderStats.spritesDrawn);
+            assertEquals(0, RenderStats.spritesCulled);
+            assertEquals(drawCalls, backend.getDrawCalls());
+        }
+    }
+
+    @Test
+    public void spritesOutsideTheCameraAreCulled() {
+        for(int i = 0; i < 10; i++) addSprite(i * SPRITE_SIZE, 0.0f);
+        for(int i = 0; i < 10; i++) addSprite(10000.0f + i * SPRITE_SIZE, 10000.0f);
+
+        for(int step = 0; step < 10; step++) frame();
+        assertEquals(10, RenderStats.spritesDrawn);
+        assertEquals(10, RenderStats.spritesCulled);
+    }
+
+    // A sprite moves out of its static batch on the first change, the grid has to follow it
+    @Test
+    public void movedSpriteIsCulledAtItsNewPosition() {
+        GameObject sprite = addSprite(0.0f, 0.0f);
+        for(int step = 0; step < 3; step++) frame();
+
+        sprite.transform.setPosition(5000.0f, 5000.0f);
+        for(int step = 0; step < 3; step++) frame();
+
+        scene.getCamera().setPosition(4900.0f, 4900.0f);
+        frame();
+        assertEquals(1, RenderStats.spritesDrawn);
+        assertEquals(0, RenderStats.spritesCulled);
+
+        scene.getCamera().setPosition(0.0f, 0.0f);
+        frame();
+        assertEquals(0, RenderStats.spritesDrawn);
+        assertEquals(1, RenderStats.spritesCulled);
+    }
+
+    private GameObject addSprite(float x, float y) {
+        GameObject object = new GameObject("Test_Sprite", new Transform(new Vector2f(x, y),
+                new Vector2f(SPRITE_SIZE, SPRITE_SIZE)), 0);
+        SpriteRenderer spriteRenderer = new SpriteRenderer();
+        spriteRenderer.setColor(new Vector4f(1.0f, 0.0f, 0.0f, 1.0f));
+        object.addComponent(spriteRenderer);
+        scene.addGameObjectToScene(object);
+        return object;
+    }
+
+    // One step and one rendered frame, stats and backend counts cover only this frame
+    private void frame() {
+        Window.simulate(1);
+
+        RenderStats.beginFrame();
+        backend.reset();
+        scene.prepareRender(1.0f);
+        DebugDraw.prepare();
+        CameraBuffer.prepare(scene.getCamera());
+
+        CameraBuffer.upload();
+        DebugDraw.draw();
+        scene.render();
+    }
+
+}